@@ -1,10 +1,5 @@
 package in.precisiontestautomation.apifactory;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
-
-import java.io.FileReader;
-import java.io.IOException;
 /**
  * The ApiDataReader class provides a singleton, thread-safe API data reader that utilizes ThreadLocal
  * to maintain separate instances per thread. It is designed for reading API parameters from CSV files,
@@ -38,18 +33,14 @@ public class ApiDataReader {
 
     /**
      * Reads and parses API tests data from a CSV file into an ApiParameters object.
-     * It handles CSV parsing with error management, throwing a runtime exception
-     * if parsing fails due to file read errors or CSV format issues.
+     * The CSV is parsed once per suite into an {@link ApiTestPlan} held by {@link ApiTestPlanCache},
+     * throwing a runtime exception if parsing fails due to file read errors, CSV format issues or an invalid flow.
      *
      * @param csvFile The path to the CSV file containing the API tests data.
      * @return ApiParameters object containing the parsed data.
      * @throws java.lang.RuntimeException If an error occurs during file reading or CSV parsing.
      */
     public ApiParameters readTestData(String csvFile) {
-        try (CSVReader reader = new CSVReader(new FileReader(csvFile))) {
-            return ApiParameters.getInstance(reader.readAll()).get();
-        } catch (IOException | CsvException e) {
-            throw new RuntimeException("Error reading tests data from CSV file", e);
-        }
+        return ApiParameters.getInstance(ApiTestPlanCache.getInstance().getPlan(csvFile)).get();
     }
 }
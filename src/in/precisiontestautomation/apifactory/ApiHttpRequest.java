@@ -0,0 +1,94 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transport independent description of a single API call, built by {@link ApiRequester} from the parsed
+ * tests data and handed to the configured {@link HttpEngine}. The {@code RELAX_*} methods of the CSV are
+ * split into the plain HTTP verb and the {@link #isRelaxed()} flag so every engine can honour them.
+ *
+ * @author PTA-dev
+ */
+public class ApiHttpRequest {
+
+    private static final Set<String> STRICT_METHODS = Set.of("GET", "POST", "PUT", "DELETE", "PATCH");
+    private static final Set<String> RELAXED_METHODS = Set.of("GET", "POST", "PUT", "DELETE");
+    private static final String RELAX_PREFIX = "RELAX_";
+
+    @Getter private final String method;
+    @Getter private final boolean relaxed;
+    @Getter private final String endpoint;
+    @Getter private final Map<String, Object> headers = new LinkedHashMap<>();
+    @Getter private final Map<String, Object> queryParams = new LinkedHashMap<>();
+    @Getter private final Map<String, Object> formParams = new LinkedHashMap<>();
+    @Getter @Setter private Object body;
+    @Getter private boolean logged = true;
+
+    private ApiHttpRequest(String method, boolean relaxed, String endpoint) {
+        this.method = method;
+        this.relaxed = relaxed;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Creates a request for the METHOD value of a tests case, for example {@code POST} or {@code RELAX_GET}.
+     *
+     * @param csvMethod The METHOD value as written in the tests data.
+     * @param endpoint The fully resolved END_POINT.
+     * @return A new, empty request.
+     * @throws PrecisionTestException If the method is not supported.
+     */
+    public static ApiHttpRequest of(String csvMethod, String endpoint) {
+        String method = csvMethod.trim().toUpperCase(Locale.ROOT);
+        if (method.startsWith(RELAX_PREFIX) && RELAXED_METHODS.contains(method.substring(RELAX_PREFIX.length()))) {
+            return new ApiHttpRequest(method.substring(RELAX_PREFIX.length()), true, endpoint);
+        }
+        if (STRICT_METHODS.contains(method)) {
+            return new ApiHttpRequest(method, false, endpoint);
+        }
+        throw new PrecisionTestException("Unsupported HTTP method: " + method);
+    }
+
+    /**
+     * @return a copy of this request that the engines send without writing it to the console, for replaying it
+     * many times, e.g. as a load tests.
+     */
+    public ApiHttpRequest withoutLogging() {
+        ApiHttpRequest copy = new ApiHttpRequest(method, relaxed, endpoint);
+        copy.headers.putAll(headers);
+        copy.queryParams.putAll(queryParams);
+        copy.formParams.putAll(formParams);
+        copy.body = body;
+        copy.logged = false;
+        return copy;
+    }
+
+    /**
+     * Looks up a header ignoring the case of its name.
+     *
+     * @param name The header name.
+     * @return The header value, or null when the header is not set.
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, Object> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return String.valueOf(header.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true when the body is sent as {@code application/x-www-form-urlencoded} form parameters.
+     */
+    public boolean isFormRequest() {
+        return !formParams.isEmpty();
+    }
+}
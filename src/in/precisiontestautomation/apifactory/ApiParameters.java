@@ -1,17 +1,13 @@
 package in.precisiontestautomation.apifactory;
 
 import in.precisiontestautomation.utils.ApiFrameworkActions;
-import in.precisiontestautomation.utils.ApiKeyInitializers;
+import in.precisiontestautomation.utils.ValueExpression;
 import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
 import in.precisiontestautomation.utils.JsonFileReader;
-import io.restassured.path.json.JsonPath;
 import lombok.Getter;
 import lombok.Setter;
-import in.precisiontestautomation.tests.API;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is designed to handle the parameters required for setting up and executing API requests.
@@ -40,10 +36,10 @@ public class ApiParameters {
     @Getter @Setter private List<Object> authValues;
     @Getter @Setter private String schemaJson;
 
-    private List<String[]> rows;
+    private final ApiTestPlan plan;
 
-    private ApiParameters(List<String[]> rows) {
-        this.rows = rows;
+    private ApiParameters(ApiTestPlan plan) {
+        this.plan = plan;
     }
 
     /**
@@ -54,93 +50,55 @@ public class ApiParameters {
      * @return ThreadLocal instance of ApiParameters
      */
     public static ThreadLocal<ApiParameters> getInstance(List<String[]> rows) {
-        return ThreadLocal.withInitial(() -> new ApiParameters(rows));
+        return getInstance(ApiTestPlan.compile("rows", null, rows));
     }
 
     /**
-     * Parses the tests data from CSV rows into structured API request parameters.
-     * Sets various attributes such as headers, body, authentication keys/values based on the row data.
+     * Returns a ThreadLocal instance of ApiParameters for a compiled tests case plan.
+     *
+     * @param plan The cached plan of the tests case, see {@link ApiTestPlanCache}.
+     * @return ThreadLocal instance of ApiParameters
+     */
+    public static ThreadLocal<ApiParameters> getInstance(ApiTestPlan plan) {
+        return ThreadLocal.withInitial(() -> new ApiParameters(plan));
+    }
+
+    /**
+     * Runs the DEPENDANT_TEST_CASE flows of the plan with the {@link DependencyScheduler}, then resolves the dynamic values (PreFlow, ApiGlobalVariables)
+     * of this execution. The static parts are taken from the plan as they are.
      *
      * @return ApiRequester instance prepared with the parsed and structured API request data.
      */
     public ApiRequester parseTestData() {
-        for (String[] row : rows) {
-            String fieldType = row[0].trim();
-            switch (fieldType) {
-                case "END_POINT":
-                    setEndpoint(setValue("END_POINT", row[1].trim()));
-                    break;
-                case "METHOD":
-                    setMethod(row[1].trim());
-                    break;
-                case "PARAMS:KEY":
-                    ArrayList<String> paramKey = new ArrayList<>(Arrays.asList(row));
-                    paramKey.remove(0);
-                    setParamsKeys(paramKey);
-                    break;
-                case "PARAMS:VALUE":
-                    ArrayList<Object> paramsValue = new ArrayList<>(Arrays.asList(row));
-                    paramsValue.remove(0);
-                    setParamsValues(setValue("PARAMS:VALUE", paramsValue));
-                    break;
-                case "AUTH:KEY":
-                    ArrayList<String> authKeys = new ArrayList<>(Arrays.asList(row));
-                    authKeys.remove(0);
-                    setAuthKeys(authKeys);
-                    break;
-                case "AUTH:VALUE":
-                    ArrayList<Object> authValue = new ArrayList<>(Arrays.asList(row));
-                    authValue.remove(0);
-                    setAuthValues(setValue("AUTH:VALUE", authValue));
-                    break;
-                case "HEADERS:KEY":
-                    ArrayList<String> headerKey = new ArrayList<>(Arrays.asList(row));
-                    headerKey.remove(0);
-                    setHeaderKeys(headerKey);
-                    break;
-                case "HEADERS:VALUE":
-                    ArrayList<Object> headerValue = new ArrayList<>(Arrays.asList(row));
-                    headerValue.remove(0);
-                    setHeaderValues(setValue("HEADERS:VALUE", headerValue));
-                    break;
-                case "BODY:KEY":
-                    ArrayList<String> bodyKey = new ArrayList<>(Arrays.asList(row));
-                    bodyKey.remove(0);
-                    setBodyKey(bodyKey);
-                    break;
-                case "BODY:VALUE":
-                    ArrayList<Object> bodyValue = new ArrayList<>(Arrays.asList(row));
-                    bodyValue.remove(0);
-                    setBodyValue(setValue("BODY:VALUE", bodyValue));
-                    break;
-
-                case "RESPONSE:JSON_PATH":
-                    ArrayList<String> jsonPath = new ArrayList<>(Arrays.asList(row));
-                    jsonPath.remove(0);
-                    setJsonPath(jsonPath);
-                    break;
-                case "RESPONSE:EXPECTED_VALUE":
-                    ArrayList<Object> expectedValues = new ArrayList<>(Arrays.asList(row));
-                    expectedValues.remove(0);
-                    setExpectedValues(expectedValues);
-                    break;
-                case "RESPONSE:STORE_VALUE":
-                    ArrayList<Object> storeValues = new ArrayList<>(Arrays.asList(row));
-                    storeValues.remove(0);
-                    setStoreValue(setValue("RESPONSE:STORE_VALUE", storeValues));
-                    break;
-                case "DEPENDANT_TEST_CASE":
-                    if (row[1].trim().equals("NONE"))
-                        break;
-                    API.getInstance().testRunner(ApiFrameworkActions.getFileWithStartName(row[1].trim()),false);
-                    break;
-                case "RESPONSE:CODE":
-                    setResponseStatusCode(row[1].trim());
-                    break;
-                case "RESPONSE:SCHEMA":
-                    setSchemaJson(jsonString(row[1]));
-
-            }
+        DependencyScheduler.getInstance().runDependencies(plan);
+        setEndpoint(resolve("END_POINT", plan.getEndpointExpression()).toString());
+        setMethod(plan.getMethod());
+        setParamsKeys(plan.getParamsKeys());
+        setAuthKeys(plan.getAuthKeys());
+        setHeaderKeys(plan.getHeaderKeys());
+        setBodyKey(plan.getBodyKeys());
+        setJsonPath(plan.getJsonPath());
+        setResponseStatusCode(plan.getResponseStatusCode());
+        if (Objects.nonNull(plan.getParamsValueExpressions())) {
+            setParamsValues(resolve("PARAMS:VALUE", plan.getParamsValueExpressions()));
+        }
+        if (Objects.nonNull(plan.getAuthValueExpressions())) {
+            setAuthValues(resolve("AUTH:VALUE", plan.getAuthValueExpressions()));
+        }
+        if (Objects.nonNull(plan.getHeaderValueExpressions())) {
+            setHeaderValues(resolve("HEADERS:VALUE", plan.getHeaderValueExpressions()));
+        }
+        if (Objects.nonNull(plan.getBodyValueExpressions())) {
+            setBodyValue(resolve("BODY:VALUE", plan.getBodyValueExpressions()));
+        }
+        if (Objects.nonNull(plan.getExpectedValues())) {
+            setExpectedValues(new ArrayList<>(plan.getExpectedValues()));
+        }
+        if (Objects.nonNull(plan.getStoreValueExpressions())) {
+            setStoreValue(resolve("RESPONSE:STORE_VALUE", plan.getStoreValueExpressions()));
+        }
+        if (Objects.nonNull(plan.getSchemaFile())) {
+            setSchemaJson(jsonString(plan.getSchemaFile()));
         }
         return ApiRequester.getInstance(this).get();
     }
@@ -270,10 +228,22 @@ public class ApiParameters {
         }
     }
 
+    /**
+     * Resolves RESPONSE:EXPECTED_VALUE with the compiled expressions of the plan. Called when the request is built,
+     * after the PreFlow values of the request were resolved.
+     *
+     * @return the resolved expected values, or null when the tests case has none.
+     */
+    public List<Object> resolveExpectedValues() {
+        return Objects.isNull(plan.getExpectedValueExpressions())
+                ? null
+                : resolve("RESPONSE:EXPECTED_VALUE", plan.getExpectedValueExpressions());
+    }
+
     /**
      * Transforms a list of object values based on specific rules defined as "PreFlow" or "ApiGlobalVariables".
      * This method is crucial for preprocessing values before they are used in an API request, ensuring they meet
-     * the required format or derive necessary data dynamically.
+     * the required format or derive necessary data dynamically. See {@link ValueExpression} for the syntax.
      *
      * @param step The context or category of values being processed, aiding in error identification.
      * @param valueList A list of objects containing the raw values to be processed. Each value may contain
@@ -281,36 +251,15 @@ public class ApiParameters {
      * @return A new list of objects with all values transformed according to the specified rules.
      */
     public List<Object> setValue(String step, ArrayList<Object> valueList) {
-        List<Object> newValueList = new ArrayList<>();
-        try {
-            valueList.stream()
-                    .forEach(value -> {
-
-                        String[] values = value.toString().split(":");
-
-                        switch (values[0].toLowerCase()) {
-                            case "preflow":
-                                newValueList.add(ApiFrameworkActions.fetchPreFlow(value.toString()).trim());
-                                break;
-                            case "apiglobalvariables":
-                                newValueList.add(ApiKeyInitializers.getGlobalVariables().get().get(values[1].trim()));
-                                break;
-                            default:
-                                newValueList.add(value);
-                                break;
-                        }
-                    });
-        } catch (Exception e) {
-            throw new PrecisionTestException(step.toUpperCase() + ":Error while reading the value");
-        }
-
-        return newValueList;
+        return resolve(step, valueList.stream()
+                .map(value -> ValueExpression.cached(Objects.isNull(value) ? null : value.toString()))
+                .toList());
     }
 
     /**
      * Modifies an endpoint string by inserting global variables where specified. This method is particularly useful
      * for dynamically configuring API endpoints with values that may change or need to be injected at runtime.
-     * The endpoint string can include a placeholder that indicates a variable from the global settings should be
+     * The endpoint string can include placeholders that indicate a variable from the global settings should be
      * inserted at that place.
      *
      * Example Usage:
@@ -324,10 +273,22 @@ public class ApiParameters {
      * @return A string where any placeholders are replaced with actual values from the global variables map.
      */
     public String setValue(String step, String endpoint) {
+        return resolve(step, ValueExpression.compileTemplate(endpoint)).toString();
+    }
+
+    private List<Object> resolve(String step, List<ValueExpression> expressions) {
+        List<Object> values = new ArrayList<>(expressions.size());
+        for (ValueExpression expression : expressions) {
+            values.add(resolve(step, expression));
+        }
+        return values;
+    }
+
+    private static Object resolve(String step, ValueExpression expression) {
         try {
-            return ApiFrameworkActions.constructString(endpoint);
+            return expression.evaluate();
         } catch (Exception e) {
-            throw new PrecisionTestException(step.toUpperCase() + ":Error while reading the value");
+            throw new PrecisionTestException(step.toUpperCase() + ":Error while reading the value " + expression + " " + e.getMessage());
         }
     }
 
@@ -1,22 +1,19 @@
 package in.precisiontestautomation.apifactory;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import in.precisiontestautomation.scriptlessautomation.core.utils.CoreFrameworkActions;
 import in.precisiontestautomation.utils.*;
 import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
 import in.precisiontestautomation.scriptlessautomation.core.utils.AutomationAsserts;
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
-import org.awaitility.Awaitility;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * ApiRequester manages the execution of API requests based on parameters defined in an ApiParameters instance.
@@ -31,8 +28,11 @@ import java.util.concurrent.TimeUnit;
  * @since 2024-05-02
  */
 public class ApiRequester {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
     private final ApiParameters testParameters;
     private String jsonRepository = System.getProperty("user.dir") + "/test_data/api/JsonRepository";
+    private ApiHttpRequest request;
+    private ParsedResponse response;
 
     private ApiRequester(ApiParameters testParameters) {
         this.testParameters = testParameters;
@@ -60,88 +60,142 @@ public class ApiRequester {
      * @author PTA-dev
      */
     public ApiRequester executeTest(String testCaseName, AutomationAsserts automationAsserts) {
+        try {
+            executeTestAsync(testCaseName, automationAsserts).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PrecisionTestException("Error while sending the request " + e.getCause());
+        }
+        return publishResponse(testCaseName, automationAsserts);
+    }
+
+    /**
+     * Prepares and logs the request on the calling thread, then sends it and polls for the RESPONSE:EXPECTED_VALUE
+     * condition without blocking: with a non-blocking {@link HttpEngine} no thread is held while the tests case
+     * waits for its responses. Call {@link #publishResponse(String, AutomationAsserts)} on the thread running the
+     * validations once the future completed.
+     *
+     * @param testCaseName The name of the tests case, used for logging.
+     * @param automationAsserts A helper object for performing assertions and logging in the context of automated testing.
+     * @return a future completed with this instance once the matching response arrived.
+     */
+    public CompletableFuture<ApiRequester> executeTestAsync(String testCaseName, AutomationAsserts automationAsserts) {
         automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Endpoint</i> : " + testParameters.getEndpoint());
         Map<String, Object> requestParameters = testParameters.getRequestParameters();
-        RequestSpecification request = setAuth(RestAssured.given(),requestParameters)
-                .baseUri(testParameters.getEndpoint())
-                .log()
-                .all();
-
-
+        request = setAuth(ApiHttpRequest.of(testParameters.getMethod(), testParameters.getEndpoint()), requestParameters);
 
         if (!requestParameters.isEmpty()) {
             Map<String, Object> headers = (Map<String, Object>) requestParameters.get("headers");
             Map<String, Object> params = (Map<String, Object>) requestParameters.get("params");
-            Map<String, Object> body = getBody((Map<String, Object>) requestParameters.get("body"));
+            Map<String, Object> body = (Map<String, Object>) requestParameters.get("body");
 
             if (headers != null && !headers.isEmpty()) {
                 automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Header</i> : " + headers);
-                request.headers(headers);
+                request.getHeaders().putAll(headers);
             }
 
             if (params != null && !params.isEmpty()) {
                 automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Params</i> : " + params);
-                request.queryParams(params);
+                request.getQueryParams().putAll(params);
             }
 
-            if (body != null && !body.isEmpty()) {
-                automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Body</i> : " + body);
-                if (Objects.requireNonNull(headers).containsKey("Content-Type") && headers.get("Content-Type").toString().equalsIgnoreCase("application/x-www-form-urlencoded")) {
-                    request.formParams(body);
-                } else {
-                    request.body(body);
+            boolean formRequest = "application/x-www-form-urlencoded".equalsIgnoreCase(request.getHeader("Content-Type"));
+            if (body != null && body.containsKey("JsonRepository") && !formRequest) {
+                byte[] renderedBody = renderBody(body);
+                automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Body</i> : " + new String(renderedBody, StandardCharsets.UTF_8));
+                if (request.getHeader("Content-Type") == null) {
+                    request.getHeaders().put("Content-Type", "application/json");
+                }
+                request.setBody(renderedBody);
+            } else {
+                body = getBody(body);
+                if (body != null && !body.isEmpty()) {
+                    automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Body</i> : " + body);
+                    if (formRequest) {
+                        request.getFormParams().putAll(body);
+                    } else {
+                        request.setBody(body);
+                    }
                 }
             }
         }
 
-        testParameters.setExpectedValues(testParameters.setValue("RESPONSE:EXPECTED_VALUE", (ArrayList<Object>) testParameters.getExpectedValues()));
-        String[] expectedValue = testParameters.getExpectedValues().get(0).toString().split(":");
-        testParameters.getExpectedValues().set(0,expectedValue[0]);
-        int timeOut;
-        try {
-            timeOut = Integer.parseInt(expectedValue[1]);
-        } catch (ArrayIndexOutOfBoundsException e) {
-            timeOut = 30;
-        }
-        Awaitility.await().atMost(timeOut, TimeUnit.SECONDS)
-                .until(() -> {
-                    if (!expectedValue[0].equals("NONE") || expectedValue[0].isEmpty()) {
-                        return sendHttpRequest(request).getBody().asString()
-                                .contains(expectedValue[0]);
-                    }
-                    return true;
+        testParameters.setExpectedValues(testParameters.resolveExpectedValues());
+        PollingCondition pollingCondition = PollingCondition.parse(testParameters.getExpectedValues().get(0),
+                Objects.isNull(testParameters.getJsonPath()) ? null : testParameters.getJsonPath().get(0));
+        testParameters.getExpectedValues().set(0, pollingCondition.getExpectedValue());
+        StubServer.Timings timings = StubServer.isRunning() ? StubServer.timings() : null;
+        return pollingCondition.awaitAsync(() -> sendHttpRequest(request, timings))
+                .thenApply(parsed -> {
+                    response = parsed;
+                    return this;
                 });
+    }
 
-        ApiKeyInitializers.getResponse().set(sendHttpRequest(request));
-        ApiKeyInitializers.getResponse().get().prettyPrint();
-
-        automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Response</i> : " + ApiKeyInitializers.getResponse().get().getBody().asString());
+    /**
+     * Makes the response received by {@link #executeTestAsync(String, AutomationAsserts)} the response of the calling
+     * thread for the validation stages, and logs it.
+     *
+     * @param testCaseName The name of the tests case, used for logging.
+     * @param automationAsserts A helper object for performing assertions and logging in the context of automated testing.
+     * @return The current instance of ApiRequester, allowing for method chaining.
+     */
+    public ApiRequester publishResponse(String testCaseName, AutomationAsserts automationAsserts) {
+        ApiKeyInitializers.getResponse().set(response.getResponse());
+        response.bind();
+        response.getResponse().prettyPrint();
+
+        automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Response</i> : " + response.body());
+        if (HttpConnectionPool.isInitialized()) {
+            Optional.ofNullable(HttpConnectionPool.getInstance().getRouteStats(request.getEndpoint()))
+                    .ifPresent(stats -> automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Connection pool</i> : " + stats));
+        }
+        if (HttpEngineFactory.getEngine() instanceof HostConcurrencyLimiter limiter) {
+            Optional.ofNullable(limiter.getHostLimit(request.getEndpoint()))
+                    .ifPresent(host -> automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Host limit</i> : " + host));
+        }
         return this;
     }
 
     /**
-     * Sends an HTTP request based on the specified method. This method supports various HTTP methods including
-     * GET, POST, PUT, DELETE, and their secure variants with relaxed HTTPS validation.
+     * Sends the request through the {@link HttpEngine} selected with {@code HTTP_ENGINE}. The engine honours
+     * GET, POST, PUT, DELETE, PATCH and the {@code RELAX_*} variants with relaxed HTTPS validation.
      *
-     * @param request The prepared RequestSpecification object.
-     * @return The response received after executing the HTTP request.
+     * @param request The prepared request.
+     * @param timings The stub server timings of the tests case, or null when the stub is not running.
+     * @return A future completed with the response received after executing the HTTP request.
      * @author PTA-dev
      */
-    private Response sendHttpRequest(RequestSpecification request) {
-        String method = testParameters.getMethod().toUpperCase();
+    private CompletableFuture<Response> sendHttpRequest(ApiHttpRequest request, StubServer.Timings timings) {
+        if (Objects.isNull(timings)) {
+            return HttpEngineFactory.getEngine().sendAsync(request);
+        }
+        long started = System.nanoTime();
+        return HttpEngineFactory.getEngine().sendAsync(request).thenApply(response -> {
+            timings.record(System.nanoTime() - started, response);
+            return response;
+        });
+    }
 
-        return switch (method) {
-            case "GET" -> request.get();
-            case "POST" -> request.post();
-            case "PUT" -> request.put();
-            case "DELETE" -> request.delete();
-            case "PATCH" -> request.patch();
-            case "RELAX_GET" -> request.relaxedHTTPSValidation().redirects().follow(true).get();
-            case "RELAX_POST" -> request.relaxedHTTPSValidation().redirects().follow(true).post();
-            case "RELAX_PUT" -> request.relaxedHTTPSValidation().redirects().follow(true).put();
-            case "RELAX_DELETE" -> request.relaxedHTTPSValidation().redirects().follow(true).delete();
-            default -> throw new PrecisionTestException("Unsupported HTTP method: " + method);
-        };
+    /**
+     * Replays the request of the tests case as a load tests when its id is listed in {@code LOAD_TEST_IDS}.
+     * The latency percentiles, the error rate and the achieved throughput are written to the report.
+     *
+     * @param testCaseName The name of the tests case.
+     * @param automationAsserts A helper object for performing assertions and logging in the context of automated testing.
+     * @param condition A boolean value that if true, triggers the load tests; dependant tests cases pass false.
+     * @return The current instance of ApiRequester, allowing for method chaining.
+     * @author PTA-dev
+     */
+    public ApiRequester generateLoad(String testCaseName, AutomationAsserts automationAsserts, Boolean condition) {
+        if (condition && LoadGenerator.isSelected(testCaseName)) {
+            LoadGenerator.LoadResult result = LoadGenerator.getInstance(HttpEngineFactory.getEngine())
+                    .run(request, testParameters.getResponseStatusCode());
+            automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Load tests</i> : " + result);
+        }
+        return this;
     }
 
     /**
@@ -174,7 +228,7 @@ public class ApiRequester {
                     .filter(f -> !f.getValue().toString().equals("NONE"))
                     .forEach(f -> {
                         if(!f.getKey().toLowerCase().startsWith("custom")) {
-                            automationAsserts.assertEquals(f.getKey(), ApiKeyInitializers.getResponse().get().getBody().jsonPath().getJsonObject(f.getKey()).toString(),
+                            automationAsserts.assertEquals(f.getKey(), String.valueOf(CompiledJsonPath.of(f.getKey()).read(ParsedResponse.current())),
                                     f.getValue().toString(),false,null);
                         } else {
                             String[] custom = f.getKey().split(":");
@@ -202,8 +256,8 @@ public class ApiRequester {
                     .filter(e -> !e.getKey().equalsIgnoreCase("none") || !e.getKey().isEmpty())
                     .filter(e -> !e.getValue().equalsIgnoreCase("none") || !e.getValue().isEmpty())
                     .forEach(e -> {
-                        Object jsonValue = ApiKeyInitializers.getResponse().get().getBody().jsonPath().getJsonObject(e.getValue());
-                        ApiKeyInitializers.getGlobalVariables().get().put(e.getKey(), jsonValue);
+                        Object jsonValue = CompiledJsonPath.of(e.getValue()).read(ParsedResponse.current());
+                        ApiKeyInitializers.getGlobalVariables().store(e.getKey(), jsonValue);
                     });
         } catch (Exception ex) {
             throw new PrecisionTestException("Error will setting value " + ex.getLocalizedMessage());
@@ -214,22 +268,31 @@ public class ApiRequester {
 
     /**
      * Authenticates the request using authentication parameters specified in ApiParameters.
-     * Currently, this method supports Bearer token authentication.
+     * A static {@code Bearer} value is sent as it is; with a {@code TOKEN_PROVIDER} key the token is taken from the
+     * {@link TokenCache}, using the other AUTH keys as credentials.
      *
      * @param request The request to which authentication needs to be added.
      * @return The request with authentication headers set.
      * @author PTA-dev
      */
-    private RequestSpecification setAuth(RequestSpecification request,Map<String, Object> requestParameters) {
+    private ApiHttpRequest setAuth(ApiHttpRequest request, Map<String, Object> requestParameters) {
         if (requestParameters.containsKey("auth")) {
             Map<String, Object> auth = (Map<String, Object>) requestParameters.get("auth");
             if (!auth.isEmpty()) {
-                auth.entrySet().stream()
-                        .iterator().forEachRemaining(map -> {
-                            if (map.getKey().equalsIgnoreCase("Bearer")) {
-                                request.header("Authorization", "Bearer " + map.getValue());
-                            }
-                        });
+                String provider = null;
+                Map<String, String> credentials = new HashMap<>();
+                for (Map.Entry<String, Object> entry : auth.entrySet()) {
+                    if (entry.getKey().equalsIgnoreCase("Bearer")) {
+                        request.getHeaders().put("Authorization", "Bearer " + entry.getValue());
+                    } else if (entry.getKey().equalsIgnoreCase("TOKEN_PROVIDER")) {
+                        provider = String.valueOf(entry.getValue());
+                    } else {
+                        credentials.put(entry.getKey(), String.valueOf(entry.getValue()));
+                    }
+                }
+                if (Objects.nonNull(provider)) {
+                    request.getHeaders().put("Authorization", "Bearer " + TokenCache.getInstance().token(provider, credentials));
+                }
             }
         }
 
@@ -263,108 +326,61 @@ public class ApiRequester {
      * @author PTA-dev
      */
     public Map<String, Object> getBody(Map<String, Object> body) {
-        String json = null;
-        if (!Objects.isNull(body)) {
-            if (body.containsKey("JsonRepository")) {
-
-                String jsonName = body.get("JsonRepository").toString();
-                Path filePath = findFile(jsonName);
-                if (!Objects.isNull(filePath)) {
-                    try {
-                        json = Files.readString(filePath);
-                    } catch (IOException e) {
-                        throw new PrecisionTestException(jsonName + " Json file not found,either create one or verify file name");
-                    }
-                }
-
-                body.remove("JsonRepository");
-
-                String finalJson = json;
-                for (Map.Entry<String, Object> bodyMap : body.entrySet()) {
-                    String key = "{{" + bodyMap.getKey() + "}}";
-                    finalJson = finalJson.replace(key, bodyMap.getValue().toString());
-                }
-
-                ObjectMapper mapper = new ObjectMapper();
-
-                body.clear();
-                try {
-                    body = mapper.readValue(finalJson, Map.class);
-                } catch (JsonProcessingException e) {
-                    throw new PrecisionTestException(jsonName + " Error while mapping json to map");
-                }
+        if (!Objects.isNull(body) && body.containsKey("JsonRepository")) {
+            String jsonName = body.get("JsonRepository").toString();
+            byte[] json = renderBody(body);
+            try {
+                return MAPPER.readValue(json, Map.class);
+            } catch (IOException e) {
+                throw new PrecisionTestException(jsonName + " Error while mapping json to map");
             }
         }
         return body;
     }
 
+    /**
+     * Renders the JsonRepository template named by the {@code JsonRepository} body entry with the other body entries
+     * as {@code {{key}}} values. The template is compiled once and cached, see {@link JsonTemplate}.
+     *
+     * @param body A map with the {@code JsonRepository} entry and the placeholder values.
+     * @return The JSON body as UTF-8 bytes.
+     */
+    private byte[] renderBody(Map<String, Object> body) {
+        String jsonName = body.get("JsonRepository").toString();
+        Path filePath = findFile(jsonName);
+        if (Objects.isNull(filePath)) {
+            throw new PrecisionTestException(jsonName + " Json file not found,either create one or verify file name");
+        }
+        return JsonTemplate.forFile(filePath).render(body);
+    }
+
     /**
      * Finds a file within the specified JSON repository. This method is used internally to retrieve JSON templates.
+     * The lookup goes through the {@link FileIndex} of {@code test_data}.
      *
      * @param fileName The name of the file to be found.
      * @return A Path object representing the found file, or null if no file is found.
      * @author PTA-dev
      */
     private Path findFile(String fileName) {
-        try (var paths = Files.walk(Paths.get(jsonRepository))) {
-            Optional<Path> result = paths
-                    .filter(path -> path.getFileName().toString().startsWith(fileName))
-                    .findFirst();
-
-            return result.orElse(null);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        Path repository = Paths.get(jsonRepository);
+        return FileIndex.of(repository.getParent().getParent()).find(fileName, repository).orElse(null);
     }
 
+    /**
+     * Validates the response against the RESPONSE:SCHEMA file in one streaming pass, see {@link SchemaValidator}.
+     *
+     * @param condition A boolean value that if true, triggers the schema validation.
+     * @return The current instance of ApiRequester, allowing for method chaining.
+     */
     public ApiRequester validateResponseSchema(boolean condition){
         if(condition) {
-            try {
-                String expectedSchemaString = JsonFileReader.getInstance().setJsonString(testParameters.getSchemaJson()).getJsonString();
-                List<String> expectedSchema = JsonPathExtractor.getInstance().getListOfJsonPaths("", expectedSchemaString);
-                List<String> actualSchema = JsonPathExtractor.getInstance().getListOfJsonPaths("", ApiKeyInitializers.getResponse().get().getBody().asString());
-                validateSchema(actualSchema,expectedSchema);
-                return validateSchemaValue(expectedSchemaString);
-            } catch (Exception exception) {
+            if (Objects.isNull(testParameters.getSchemaJson())) {
                 System.err.println("Schema validation is not mentioned in the template");
                 return this;
             }
+            SchemaValidator.of(testParameters.getSchemaJson()).validate(ParsedResponse.current());
         }
         return this;
     }
-
-    private void validateSchema(List<String> actual,List<String> expected){
-        ApiKeyInitializers.getCustomSoftAssert().get()
-                .assertEquals("Schema validation",actual,expected,false,null);
-    }
-
-    private ApiRequester validateSchemaValue(String expectedSchemaJson){
-        JsonFileReader actualJsonFileReader = JsonFileReader.getInstance().setJsonString(ApiKeyInitializers.getResponse().get().getBody().asString());
-        Map<String,Object> expectedSchemaMap = JsonPathExtractor.getInstance().getMapJsonPathValue("",expectedSchemaJson);
-        Set<Map.Entry<String,Object>> entryMap = expectedSchemaMap.entrySet();
-        for(Map.Entry<String,Object> map : entryMap){
-            String jsonPath = map.getKey();
-            Object actualValue = actualJsonFileReader.getJsonValueByPath(addQuotesIfContainsSpace(jsonPath));
-            actualValue = Objects.isNull(actualValue) ? "null" : actualValue;
-            Object expectedValue = expectedSchemaMap.get(jsonPath);
-            if(String.valueOf(expectedValue).startsWith("@")){
-                SchemaTypeValidations.schemaTypeValidation(jsonPath,String.valueOf(expectedValue).substring(1),actualValue);
-            } else {
-                if(expectedValue.toString().toLowerCase().startsWith("apiglobalvariables")){
-                    expectedValue = ApiKeyInitializers.getGlobalVariables().get().get(expectedValue.toString().split(":")[1]);
-                }
-                ApiKeyInitializers.getCustomSoftAssert().get()
-                        .assertEquals(jsonPath,actualValue,expectedValue,false,null);
-            }
-        }
-
-        return this;
-    }
-
-    private String addQuotesIfContainsSpace(String input) {
-        if (input.contains(" ")) {
-            return "'" + input + "'";
-        }
-        return input;
-    }
 }
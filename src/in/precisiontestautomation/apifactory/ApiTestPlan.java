@@ -0,0 +1,219 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ValueExpression;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, validated form of a {@code TestID_GroupName.csv} tests case flow. The rows are parsed once, the static
+ * cells (METHOD, keys, RESPONSE:CODE, RESPONSE:SCHEMA file) are kept as they are, and the END_POINT and value cells
+ * are also compiled into {@link ValueExpression}s, so PreFlow and ApiGlobalVariables placeholders are resolved on every
+ * execution by {@link ApiParameters} without parsing the cells again. Custom values are kept raw and resolved when the
+ * request is built. Sections missing from the CSV are null, as they were for the row based parser.
+ *
+ * <p>Plans are built and cached by {@link ApiTestPlanCache}.</p>
+ *
+ * @author PTA-dev
+ */
+public final class ApiTestPlan implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    private static final String NONE = "NONE";
+
+    @Getter private final String source;
+    @Getter private final String contentHash;
+    @Getter private final List<String> dependantTestCases;
+    @Getter private final String endpoint;
+    @Getter private final String method;
+    @Getter private final List<String> paramsKeys;
+    @Getter private final List<String> paramsValues;
+    @Getter private final List<String> authKeys;
+    @Getter private final List<String> authValues;
+    @Getter private final List<String> headerKeys;
+    @Getter private final List<String> headerValues;
+    @Getter private final List<String> bodyKeys;
+    @Getter private final List<String> bodyValues;
+    @Getter private final List<String> jsonPath;
+    @Getter private final List<String> expectedValues;
+    @Getter private final List<String> storeValues;
+    @Getter private final String responseStatusCode;
+    @Getter private final String schemaFile;
+    @Getter private final ValueExpression endpointExpression;
+    @Getter private final List<ValueExpression> paramsValueExpressions;
+    @Getter private final List<ValueExpression> authValueExpressions;
+    @Getter private final List<ValueExpression> headerValueExpressions;
+    @Getter private final List<ValueExpression> bodyValueExpressions;
+    @Getter private final List<ValueExpression> expectedValueExpressions;
+    @Getter private final List<ValueExpression> storeValueExpressions;
+
+    private ApiTestPlan(Builder builder) {
+        this.source = builder.source;
+        this.contentHash = builder.contentHash;
+        this.dependantTestCases = List.copyOf(builder.dependantTestCases);
+        this.endpoint = builder.endpoint;
+        this.method = builder.method;
+        this.paramsKeys = builder.paramsKeys;
+        this.paramsValues = builder.paramsValues;
+        this.authKeys = builder.authKeys;
+        this.authValues = builder.authValues;
+        this.headerKeys = builder.headerKeys;
+        this.headerValues = builder.headerValues;
+        this.bodyKeys = builder.bodyKeys;
+        this.bodyValues = builder.bodyValues;
+        this.jsonPath = builder.jsonPath;
+        this.expectedValues = builder.expectedValues;
+        this.storeValues = builder.storeValues;
+        this.responseStatusCode = builder.responseStatusCode;
+        this.schemaFile = builder.schemaFile;
+        this.endpointExpression = Objects.isNull(endpoint) ? null : ValueExpression.compileTemplate(endpoint);
+        this.paramsValueExpressions = ValueExpression.compileAll(paramsValues);
+        this.authValueExpressions = ValueExpression.compileAll(authValues);
+        this.headerValueExpressions = ValueExpression.compileAll(headerValues);
+        this.bodyValueExpressions = ValueExpression.compileAll(bodyValues);
+        this.expectedValueExpressions = ValueExpression.compileAll(expectedValues);
+        this.storeValueExpressions = ValueExpression.compileAll(storeValues);
+    }
+
+    /**
+     * Parses and validates the rows of a tests case flow.
+     *
+     * @param source The CSV file the rows come from, used in error messages.
+     * @param contentHash The hash of the CSV content the plan was built from.
+     * @param rows The CSV rows.
+     * @return the validated plan.
+     * @throws PrecisionTestException If END_POINT or METHOD is missing, the METHOD is not supported or a KEY row
+     *                                has more keys than its VALUE row has values.
+     */
+    public static ApiTestPlan compile(String source, String contentHash, List<String[]> rows) {
+        Builder builder = new Builder(source, contentHash);
+        for (String[] row : rows) {
+            if (row.length == 0) {
+                continue;
+            }
+            switch (row[0].trim()) {
+                case "END_POINT" -> builder.endpoint = cell(row);
+                case "METHOD" -> builder.method = cell(row);
+                case "PARAMS:KEY" -> builder.paramsKeys = cells(row);
+                case "PARAMS:VALUE" -> builder.paramsValues = cells(row);
+                case "AUTH:KEY" -> builder.authKeys = cells(row);
+                case "AUTH:VALUE" -> builder.authValues = cells(row);
+                case "HEADERS:KEY" -> builder.headerKeys = cells(row);
+                case "HEADERS:VALUE" -> builder.headerValues = cells(row);
+                case "BODY:KEY" -> builder.bodyKeys = cells(row);
+                case "BODY:VALUE" -> builder.bodyValues = cells(row);
+                case "RESPONSE:JSON_PATH" -> builder.jsonPath = cells(row);
+                case "RESPONSE:EXPECTED_VALUE" -> builder.expectedValues = cells(row);
+                case "RESPONSE:STORE_VALUE" -> builder.storeValues = cells(row);
+                case "RESPONSE:CODE" -> builder.responseStatusCode = cell(row);
+                case "RESPONSE:SCHEMA" -> builder.schemaFile = row.length > 1 ? row[1] : null;
+                case "DEPENDANT_TEST_CASE" -> Arrays.stream(row).skip(1)
+                        .map(String::trim)
+                        .filter(testCase -> !testCase.isEmpty() && !testCase.equals(NONE))
+                        .forEach(builder.dependantTestCases::add);
+                default -> {
+                    // rows the framework does not know are ignored, as they always were
+                }
+            }
+        }
+        ApiTestPlan plan = new ApiTestPlan(builder);
+        plan.validate();
+        return plan;
+    }
+
+    /**
+     * @return the class names of the {@code Custom:Class:method} values and validation points of the flow.
+     */
+    public Set<String> getCustomClassNames() {
+        Set<String> classNames = new LinkedHashSet<>();
+        Stream.of(paramsValues, authValues, headerValues, bodyValues, jsonPath)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .map(cell -> cell.split(":"))
+                .filter(parts -> parts.length > 2 && parts[0].trim().equalsIgnoreCase("Custom"))
+                .forEach(parts -> classNames.add(parts[1].trim()));
+        return classNames;
+    }
+
+    private void validate() {
+        if (Objects.isNull(endpoint) || endpoint.isEmpty()) {
+            throw new PrecisionTestException(source + ": END_POINT is missing");
+        }
+        if (Objects.isNull(method) || method.isEmpty()) {
+            throw new PrecisionTestException(source + ": METHOD is missing");
+        }
+        try {
+            ApiHttpRequest.of(method, endpoint);
+        } catch (PrecisionTestException e) {
+            throw new PrecisionTestException(source + ": " + e.getMessage());
+        }
+        validateAlignment("PARAMS", paramsKeys, paramsValues);
+        validateAlignment("AUTH", authKeys, authValues);
+        validateAlignment("HEADERS", headerKeys, headerValues);
+        validateAlignment("BODY", bodyKeys, bodyValues);
+        validateAlignment("RESPONSE:JSON_PATH/EXPECTED_VALUE", jsonPath, expectedValues);
+        validateAlignment("RESPONSE:STORE_VALUE/JSON_PATH", storeValues, jsonPath);
+        if (Objects.nonNull(jsonPath)) {
+            jsonPath.stream()
+                    .filter(path -> !path.isEmpty() && !path.equals(NONE) && !path.toLowerCase().startsWith("custom"))
+                    .forEach(CompiledJsonPath::of);
+        }
+    }
+
+    private void validateAlignment(String section, List<String> keys, List<String> values) {
+        if (Objects.isNull(keys)) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            if (!key.isEmpty() && !key.equals(NONE) && (Objects.isNull(values) || values.size() <= i)) {
+                throw new PrecisionTestException(source + ": " + section + " has no value for key '" + key + "' in column " + (i + 2));
+            }
+        }
+    }
+
+    private static String cell(String[] row) {
+        return row.length > 1 ? row[1].trim() : null;
+    }
+
+    private static List<String> cells(String[] row) {
+        return List.copyOf(Arrays.asList(row).subList(1, row.length));
+    }
+
+    private static final class Builder {
+        private final String source;
+        private final String contentHash;
+        private final List<String> dependantTestCases = new ArrayList<>();
+        private String endpoint;
+        private String method;
+        private List<String> paramsKeys;
+        private List<String> paramsValues;
+        private List<String> authKeys;
+        private List<String> authValues;
+        private List<String> headerKeys;
+        private List<String> headerValues;
+        private List<String> bodyKeys;
+        private List<String> bodyValues;
+        private List<String> jsonPath;
+        private List<String> expectedValues;
+        private List<String> storeValues;
+        private String responseStatusCode;
+        private String schemaFile;
+
+        private Builder(String source, String contentHash) {
+            this.source = source;
+            this.contentHash = contentHash;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package in.precisiontestautomation.apifactory;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import in.precisiontestautomation.utils.CustomClassRegistry;
+import org.testng.Reporter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Suite wide cache of {@link ApiTestPlan}s, so a tests case flow is parsed once per suite however often it runs or is
+ * referenced as a DEPENDANT_TEST_CASE.
+ *
+ * <p>{@link #preload()} builds the plans of every CSV under {@code test_data/.../test_case_flows} in parallel when the
+ * suite starts. When {@code TEST_PLAN_CACHE_FILE} is set in {@code testNgConfiguration.properties}, the plans are also
+ * written to that binary file and reused by the next run for every CSV whose content hash did not change. The
+ * DEPENDANT_TEST_CASE graphs are checked and the Custom classes used by the flows are compiled together afterwards.
+ * The number of plans is written to the TestNG report; only flows that cannot be cached and cache file problems are
+ * printed.</p>
+ *
+ * @author PTA-dev
+ */
+public class ApiTestPlanCache {
+
+    private static final ObjectInputFilter CACHE_FILE_FILTER = ObjectInputFilter.Config.createFilter(
+            "in.precisiontestautomation.apifactory.ApiTestPlan;in.precisiontestautomation.utils.ValueExpression*;java.util.*;java.lang.*;!*");
+
+    private final Path testData = Paths.get(System.getProperty("user.dir"), "test_data");
+    private final Map<Path, ApiTestPlan> plans = new ConcurrentHashMap<>();
+
+    private ApiTestPlanCache() {
+    }
+
+    private static final class Holder {
+        private static final ApiTestPlanCache INSTANCE = new ApiTestPlanCache();
+    }
+
+    /**
+     * @return the cache shared by the suite.
+     */
+    public static ApiTestPlanCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the plan of a tests case flow, building it on first use.
+     *
+     * @param csvFile The path of the CSV file.
+     * @return the cached plan.
+     */
+    public ApiTestPlan getPlan(String csvFile) {
+        return plans.computeIfAbsent(Paths.get(csvFile).toAbsolutePath().normalize(), path -> compile(path, readBytes(path)));
+    }
+
+    /**
+     * Builds the plans of all tests case flows in parallel, reusing the plans of the cache file whose content hash
+     * still matches. A flow that fails validation is reported and left out, so the failure surfaces when it runs.
+     */
+    public void preload() {
+        List<Path> flows;
+        try (Stream<Path> paths = Files.isDirectory(testData) ? Files.walk(testData) : Stream.empty()) {
+            flows = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".csv"))
+                    .filter(path -> path.toString().toLowerCase().contains("test_case_flows"))
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to list the tests case flows " + e.getLocalizedMessage());
+        }
+
+        String cacheFile = ApiConfiguration.getValue("TEST_PLAN_CACHE_FILE", "");
+        Map<String, ApiTestPlan> stored = cacheFile.isEmpty() ? Map.of() : readCacheFile(Paths.get(cacheFile));
+        AtomicInteger rebuilt = new AtomicInteger();
+        long started = System.nanoTime();
+        flows.parallelStream().forEach(path -> {
+            try {
+                byte[] content = readBytes(path);
+                ApiTestPlan cached = stored.get(path.toString());
+                if (Objects.nonNull(cached) && cached.getContentHash().equals(hash(content))) {
+                    plans.put(path, cached);
+                } else {
+                    plans.put(path, compile(path, content));
+                    rebuilt.incrementAndGet();
+                }
+            } catch (PrecisionTestException e) {
+                System.out.println("Test plan not cached: " + e.getMessage());
+            }
+        });
+        Reporter.log(String.format("<b>Test plans</b> : %d flows, %d rebuilt in %.1fms",
+                plans.size(), rebuilt.get(), (System.nanoTime() - started) / 1e6));
+
+        if (!cacheFile.isEmpty() && (rebuilt.get() > 0 || stored.size() != plans.size())) {
+            writeCacheFile(Paths.get(cacheFile));
+        }
+
+        DependencyScheduler.getInstance().check(plans.values());
+
+        try {
+            CustomClassRegistry.getInstance().compileAll(plans.values().stream()
+                    .flatMap(plan -> plan.getCustomClassNames().stream())
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+        } catch (PrecisionTestException e) {
+            System.out.println("Custom classes not compiled: " + e.getMessage());
+        }
+    }
+
+    private static ApiTestPlan compile(Path path, byte[] content) {
+        try (CSVReader reader = new CSVReader(new StringReader(new String(content, Charset.defaultCharset())))) {
+            return ApiTestPlan.compile(path.toString(), hash(content), reader.readAll());
+        } catch (IOException | CsvException e) {
+            throw new PrecisionTestException("Error reading tests data from CSV file " + path + " " + e.getLocalizedMessage());
+        }
+    }
+
+    private static byte[] readBytes(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new PrecisionTestException("Error reading tests data from CSV file " + path + " " + e.getLocalizedMessage());
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new PrecisionTestException("SHA-256 is not available " + e.getLocalizedMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ApiTestPlan> readCacheFile(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Map.of();
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            in.setObjectInputFilter(CACHE_FILE_FILTER);
+            return (Map<String, ApiTestPlan>) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.out.println("Ignoring unreadable test plan cache " + cacheFile + ": " + e.getLocalizedMessage());
+            return Map.of();
+        }
+    }
+
+    private void writeCacheFile(Path cacheFile) {
+        Map<String, ApiTestPlan> snapshot = new HashMap<>();
+        plans.forEach((path, plan) -> snapshot.put(path.toString(), plan));
+        try {
+            if (Objects.nonNull(cacheFile.toAbsolutePath().getParent())) {
+                Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            }
+            Path temporary = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "api-test-plans", ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeObject(snapshot);
+            }
+            Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Unable to write the test plan cache " + cacheFile + ": " + e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package in.precisiontestautomation.apifactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Poll interval that grows exponentially from an initial interval up to a ceiling and applies
+ * "equal jitter": every wait is half of the current backoff plus a random share of the other half. This keeps
+ * parallel tests that poll the same endpoint from retrying in lock step.
+ *
+ * @author PTA-dev
+ */
+public class BackoffPollInterval {
+
+    private final long initialMillis;
+    private final long maxMillis;
+    private final double multiplier;
+
+    /**
+     * @param initial The backoff of the first poll.
+     * @param max The largest backoff between two polls.
+     * @param multiplier Growth factor applied after every poll, 1 keeps the interval fixed.
+     */
+    public BackoffPollInterval(Duration initial, Duration max, double multiplier) {
+        this.initialMillis = Math.max(1, initial.toMillis());
+        this.maxMillis = Math.max(initialMillis, max.toMillis());
+        this.multiplier = Math.max(1, multiplier);
+    }
+
+    /**
+     * @param pollCount The number of the poll that just failed, starting at 1.
+     * @return the wait before the next poll.
+     */
+    public Duration next(int pollCount) {
+        double backoff = initialMillis * Math.pow(multiplier, Math.max(0, pollCount - 1));
+        long ceiling = (long) Math.min(maxMillis, backoff);
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
+}
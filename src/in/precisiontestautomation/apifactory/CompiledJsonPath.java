@@ -0,0 +1,197 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A RESPONSE:JSON_PATH entry compiled into segments that walk the Jackson tree of the response directly, instead of
+ * evaluating the path as a Groovy GPath expression for every check.
+ *
+ * <p>Compiled paths are the forms used in tests case flows: names separated by dots ({@code data.user.id}), quoted
+ * names ({@code 'Column 1'}, {@code "first name"}), indexes ({@code items[0]}, {@code [0].id}, {@code items[-1]}) and
+ * names applied to a list, which collect the name from every element as GPath does ({@code items.id}). Any other
+ * expression, e.g. {@code items.find { it.id == 1 }} or {@code items.size()}, is evaluated with GPath as before.</p>
+ *
+ * <p>Values are returned as GPath returns them: Integer, Long or BigInteger, Float for decimals in float range,
+ * String, Boolean, null, List and LinkedHashMap. Compiled paths are cached for the whole suite.</p>
+ *
+ * @author PTA-dev
+ */
+public final class CompiledJsonPath {
+
+    private static final Map<String, CompiledJsonPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final Segment[] segments;
+
+    private CompiledJsonPath(String path, Segment[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * @param path A RESPONSE:JSON_PATH entry.
+     * @return the compiled path, compiled on first use.
+     */
+    public static CompiledJsonPath of(String path) {
+        return CACHE.computeIfAbsent(path, key -> new CompiledJsonPath(key, parse(key.trim())));
+    }
+
+    /**
+     * @return true when the path walks the Jackson tree, false when it falls back to GPath.
+     */
+    public boolean isCompiled() {
+        return Objects.nonNull(segments);
+    }
+
+    /**
+     * Reads the value of the path from a response.
+     *
+     * @param response The parsed response.
+     * @return the value, or null when the path does not exist.
+     */
+    public Object read(ParsedResponse response) {
+        if (!isCompiled()) {
+            return response.jsonPath().getJsonObject(path);
+        }
+        JsonNode node = response.tree();
+        for (Segment segment : segments) {
+            node = Objects.isNull(segment.name()) ? index(node, segment.index()) : field(node, segment.name());
+            if (Objects.isNull(node)) {
+                return null;
+            }
+        }
+        return toJava(node);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static JsonNode field(JsonNode node, String name) {
+        if (node.isObject()) {
+            return node.get(name);
+        }
+        if (node.isArray()) {
+            ArrayNode collected = JsonNodeFactory.instance.arrayNode(node.size());
+            for (JsonNode element : node) {
+                JsonNode value = field(element, name);
+                collected.add(Objects.isNull(value) ? JsonNodeFactory.instance.nullNode() : value);
+            }
+            return collected;
+        }
+        return null;
+    }
+
+    private static JsonNode index(JsonNode node, int index) {
+        if (!node.isArray()) {
+            return null;
+        }
+        int position = index < 0 ? node.size() + index : index;
+        return position >= 0 && position < node.size() ? node.get(position) : null;
+    }
+
+    private static Object toJava(JsonNode node) {
+        if (node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isInt()) {
+            return node.intValue();
+        }
+        if (node.isLong()) {
+            return node.longValue();
+        }
+        if (node.isBigInteger()) {
+            return node.bigIntegerValue();
+        }
+        if (node.isNumber()) {
+            double value = node.doubleValue();
+            return Math.abs(value) <= Float.MAX_VALUE ? (Object) (float) value : (Object) value;
+        }
+        if (node.isArray()) {
+            List<Object> list = new ArrayList<>(node.size());
+            node.forEach(element -> list.add(toJava(element)));
+            return list;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            map.put(field.getKey(), toJava(field.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * @return the segments of the path, or null when it needs GPath.
+     */
+    private static Segment[] parse(String path) {
+        List<Segment> segments = new ArrayList<>();
+        int i = path.startsWith("$") && (path.length() == 1 || path.charAt(1) == '.' || path.charAt(1) == '[') ? 1 : 0;
+        boolean expectName = i == 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) {
+                    return null;
+                }
+                try {
+                    segments.add(new Segment(null, Integer.parseInt(path.substring(i + 1, close).trim())));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                i = close + 1;
+                expectName = false;
+            } else if (c == '.' && !expectName) {
+                i++;
+                expectName = true;
+                if (i == path.length()) {
+                    return null;
+                }
+            } else if (expectName && (c == '\'' || c == '"')) {
+                int close = path.indexOf(c, i + 1);
+                if (close < 0) {
+                    return null;
+                }
+                segments.add(new Segment(path.substring(i + 1, close), 0));
+                i = close + 1;
+                expectName = false;
+            } else if (expectName && isNameChar(c)) {
+                int end = i;
+                while (end < path.length() && isNameChar(path.charAt(end))) {
+                    end++;
+                }
+                segments.add(new Segment(path.substring(i, end), 0));
+                i = end;
+                expectName = false;
+            } else {
+                return null;
+            }
+        }
+        return expectName && !segments.isEmpty() ? null : segments.toArray(new Segment[0]);
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$';
+    }
+
+    private record Segment(String name, int index) {
+    }
+}
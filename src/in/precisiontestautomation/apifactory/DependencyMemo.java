@@ -0,0 +1,162 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.utils.ApiConfiguration;
+import in.precisiontestautomation.utils.VariableStore;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers the ApiGlobalVariables stored by a DEPENDANT_TEST_CASE flow, so the next tests case depending on the same
+ * flow reuses them instead of sending its requests again, e.g. for a login flow shared by hundreds of tests cases.
+ *
+ * <p>{@code DEPENDENCY_MEMO} selects the scope: {@code OFF} (default) runs every dependency every time, {@code SUITE}
+ * shares a run with the whole suite and {@code WORKER} with the later tests cases of the same TestNG worker. Tests cases
+ * started before TestNG picks their worker, i.e. with {@code EXECUTION_MODE = VIRTUAL}, have no worker and are not
+ * memoized with {@code WORKER}. A reused
+ * run is dropped after {@code DEPENDENCY_MEMO_TTL_SECONDS} (0 keeps it for the whole suite), and the flows listed in
+ * {@code DEPENDENCY_RERUN_IDS} always run. Tests cases asking for a flow that is still running wait for that run
+ * instead of starting their own; a failed run is forgotten, so the next tests case runs the flow again.</p>
+ *
+ * @author PTA-dev
+ */
+public class DependencyMemo {
+
+    private enum Scope {
+        OFF, SUITE, WORKER
+    }
+
+    private final Scope scope;
+    private final long ttlNanos;
+    private final Set<String> rerunIds;
+    private final Map<String, Entry> suiteEntries = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Entry>> workerEntries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private DependencyMemo() {
+        this.scope = Scope.valueOf(ApiConfiguration.getValue("DEPENDENCY_MEMO", "OFF").toUpperCase());
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ApiConfiguration.getLong("DEPENDENCY_MEMO_TTL_SECONDS", 0));
+        this.rerunIds = Arrays.stream(ApiConfiguration.getValue("DEPENDENCY_RERUN_IDS", "").split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class Holder {
+        private static final DependencyMemo INSTANCE = new DependencyMemo();
+    }
+
+    /**
+     * @return the memo shared by the suite.
+     */
+    public static DependencyMemo getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return true unless {@code DEPENDENCY_MEMO} is {@code OFF}.
+     */
+    public boolean isEnabled() {
+        return scope != Scope.OFF;
+    }
+
+    /**
+     * Looks a flow up. When the returned claim is not the owner, its values are those of an earlier or running run;
+     * otherwise the caller runs the flow and has to {@link #complete} or {@link #fail} the claim.
+     *
+     * @param key      The key of the flow, its CSV file.
+     * @param testCase The tests case id of the flow.
+     * @param workerId The TestNG worker of the tests case, see {@link VariableStore.Scope#workerId()}.
+     * @return the claim, or null when the flow is not memoized.
+     */
+    Claim claim(String key, String testCase, long workerId) {
+        if (!isEnabled() || rerunIds.contains(testCase.toLowerCase())
+                || (scope == Scope.WORKER && workerId == VariableStore.NO_WORKER)) {
+            return null;
+        }
+        Map<String, Entry> entries = scope == Scope.SUITE ? suiteEntries
+                : workerEntries.computeIfAbsent(workerId, id -> new ConcurrentHashMap<>());
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (ignored, existing) -> {
+            if (Objects.nonNull(existing) && existing.isFresh(ttlNanos)) {
+                return existing;
+            }
+            created[0] = new Entry();
+            return created[0];
+        });
+        boolean owner = entry == created[0];
+        (owner ? misses : hits).increment();
+        return new Claim(entries, key, entry, owner);
+    }
+
+    /**
+     * Stores the values of a run for the tests cases waiting for it and the ones to come.
+     *
+     * @param claim  The claim of the run.
+     * @param values The ApiGlobalVariables stored by the flow and its own dependencies.
+     */
+    void complete(Claim claim, Map<String, Object> values) {
+        claim.entry().storedAt = System.nanoTime();
+        claim.entry().values.complete(Map.copyOf(values));
+    }
+
+    /**
+     * Forgets a failed run; the tests cases waiting for it fail with the same error.
+     *
+     * @param claim The claim of the run.
+     * @param error The error of the run.
+     */
+    void fail(Claim claim, Throwable error) {
+        claim.entries().remove(claim.key(), claim.entry());
+        claim.entry().values.completeExceptionally(error);
+    }
+
+    /**
+     * Drops the remembered runs of the suite and of every worker, when the suite ends.
+     */
+    public void clear() {
+        suiteEntries.clear();
+        workerEntries.clear();
+    }
+
+    /**
+     * @return the reused and executed dependency runs of the suite.
+     */
+    public String summary() {
+        return scope + " " + hits.sum() + " reused, " + misses.sum() + " run";
+    }
+
+    /**
+     * The outcome of a lookup.
+     */
+    record Claim(Map<String, Entry> entries, String key, Entry entry, boolean owner) {
+
+        /**
+         * @return the values stored by the flow, completed when its run is done.
+         */
+        CompletableFuture<Map<String, Object>> values() {
+            return entry.values;
+        }
+    }
+
+    static final class Entry {
+        private final CompletableFuture<Map<String, Object>> values = new CompletableFuture<>();
+        private volatile long storedAt;
+
+        private boolean isFresh(long ttlNanos) {
+            if (!values.isDone()) {
+                return true;
+            }
+            return !values.isCompletedExceptionally() && (ttlNanos <= 0 || System.nanoTime() - storedAt <= ttlNanos);
+        }
+    }
+}
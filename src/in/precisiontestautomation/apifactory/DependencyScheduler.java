@@ -0,0 +1,344 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.scriptlessautomation.core.utils.AutomationAsserts;
+import in.precisiontestautomation.scriptlessautomation.core.utils.CoreKeyInitializers;
+import in.precisiontestautomation.tests.API;
+import in.precisiontestautomation.tests.DeferredAsserts;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import in.precisiontestautomation.utils.ApiFrameworkActions;
+import in.precisiontestautomation.utils.ApiKeyInitializers;
+import in.precisiontestautomation.utils.StubServer;
+import in.precisiontestautomation.utils.VariableStore;
+import org.testng.Reporter;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the DEPENDANT_TEST_CASE flows of a tests case as a dependency graph instead of one recursive call per flow.
+ *
+ * <p>The graph of a tests case is built once from the cached {@link ApiTestPlan}s: every flow it depends on, directly
+ * or through other flows, runs once, and a cycle fails the tests case before anything is sent. A flow starts on one of
+ * {@code DEPENDENCY_THREADS} threads as soon as the flows it depends on have finished, so independent branches run in
+ * parallel. Each flow sees the ApiGlobalVariables of the tests case plus the values stored by the flows it depends on,
+ * and the tests case sees the values of all its dependencies once they are done. Values stored in the worker or suite
+ * layer of the {@link VariableStore} are shared as soon as they are stored.</p>
+ *
+ * <p>The tests case reports the wall time of its dependencies, the critical path (the chain of flows that decided that
+ * time) and the slack of the other flows, i.e. how much longer each could take without delaying the tests case.</p>
+ *
+ * <p>With {@link DependencyMemo} enabled, a flow that already ran is reused with the values it stored, and the flows it
+ * depends on are not run either unless another flow of the graph still needs them.</p>
+ *
+ * @author PTA-dev
+ */
+public class DependencyScheduler {
+
+    private static final ThreadLocal<Boolean> SCHEDULED = new ThreadLocal<>();
+
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private DependencyScheduler() {
+        int threads = ApiConfiguration.getInt("DEPENDENCY_THREADS", Math.max(2, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "api-dependency-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Holder {
+        private static final DependencyScheduler INSTANCE = new DependencyScheduler();
+    }
+
+    /**
+     * @return the scheduler shared by the suite.
+     */
+    public static DependencyScheduler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Builds the dependency graph of every plan when the suite starts and reports the flows that cannot run, e.g.
+     * because of a cycle or an unknown tests case id.
+     *
+     * @param plans The plans of the suite.
+     */
+    public void check(Collection<ApiTestPlan> plans) {
+        int flows = 0;
+        for (ApiTestPlan plan : plans) {
+            if (plan.getDependantTestCases().isEmpty()) {
+                continue;
+            }
+            try {
+                schedule(plan);
+                flows++;
+            } catch (PrecisionTestException e) {
+                System.out.println("Dependencies not scheduled: " + e.getMessage());
+            }
+        }
+        Reporter.log("<b>Dependency graphs</b> : " + flows + " flows with DEPENDANT_TEST_CASE");
+    }
+
+    /**
+     * Runs the dependencies of a tests case and copies the ApiGlobalVariables they stored to the calling thread. Does
+     * nothing for a flow that is itself run by the scheduler, as its dependencies are already part of the graph.
+     *
+     * @param plan The plan of the tests case.
+     */
+    public void runDependencies(ApiTestPlan plan) {
+        if (plan.getDependantTestCases().isEmpty() || Boolean.TRUE.equals(SCHEDULED.get())) {
+            return;
+        }
+        Schedule schedule = schedule(plan);
+        AutomationAsserts automationAsserts = CoreKeyInitializers.getCustomSoftAssert().get();
+        VariableStore.Scope variables = ApiKeyInitializers.getGlobalVariables().get();
+        StubServer.Timings timings = StubServer.timings();
+        Map<String, Object> seed = variables.testValues();
+        long origin = System.nanoTime();
+
+        // Claims are taken from the tests case backwards, so the dependencies of a reused flow are neither claimed nor run
+        Map<String, DependencyMemo.Claim> claims = new HashMap<>();
+        Set<String> needed = new HashSet<>(schedule.direct());
+        for (int i = schedule.steps().size() - 1; i >= 0; i--) {
+            Step step = schedule.steps().get(i);
+            if (!needed.contains(step.key())) {
+                continue;
+            }
+            DependencyMemo.Claim claim = DependencyMemo.getInstance().claim(step.key(), step.testCase(), variables.workerId());
+            if (Objects.nonNull(claim)) {
+                claims.put(step.key(), claim);
+            }
+            if (Objects.isNull(claim) || claim.owner()) {
+                needed.addAll(step.prerequisites());
+            }
+        }
+
+        Map<String, CompletableFuture<Run>> runs = new LinkedHashMap<>();
+        // Flows running in parallel must not share the report of the tests case, so each one keeps its own lines
+        Map<String, DeferredAsserts> reports = new LinkedHashMap<>();
+        for (Step step : schedule.steps()) {
+            if (!needed.contains(step.key())) {
+                continue;
+            }
+            DependencyMemo.Claim claim = claims.get(step.key());
+            if (Objects.nonNull(claim) && !claim.owner()) {
+                runs.put(step.key(), claim.values().thenApply(values -> {
+                    Map<String, Object> reused = new HashMap<>(seed);
+                    reused.putAll(values);
+                    long now = System.nanoTime() - origin;
+                    return new Run(step, reused, now, now, true);
+                }));
+                continue;
+            }
+            List<CompletableFuture<Run>> prerequisites = step.prerequisites().stream().map(runs::get).collect(Collectors.toList());
+            DeferredAsserts report = new DeferredAsserts();
+            reports.put(step.key(), report);
+            CompletableFuture<Run> run = CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+                    .thenApplyAsync(ignored -> {
+                        Map<String, Object> input = new HashMap<>(seed);
+                        prerequisites.forEach(prerequisite -> input.putAll(prerequisite.join().variables()));
+                        return execute(step, variables.child(input), report, timings, origin);
+                    }, executor);
+            if (Objects.nonNull(claim)) {
+                run.whenComplete((result, error) -> {
+                    if (Objects.isNull(error)) {
+                        DependencyMemo.getInstance().complete(claim, stored(seed, result.variables()));
+                    } else {
+                        DependencyMemo.getInstance().fail(claim, error);
+                    }
+                });
+            }
+            runs.put(step.key(), run);
+        }
+        try {
+            CompletableFuture.allOf(runs.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = Objects.nonNull(e.getCause().getCause()) && e.getCause() instanceof CompletionException
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PrecisionTestException("Dependencies of " + testCaseName(plan.getSource()) + " failed " + cause);
+        } finally {
+            reports.values().forEach(report -> report.replay(automationAsserts));
+        }
+
+        schedule.direct().forEach(key -> variables.putAll(runs.get(key).join().variables()));
+        String report = report(runs.values().stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        automationAsserts.info("TestCase <b>" + testCaseName(plan.getSource()) + "</b> -> <i>Dependencies</i> : " + report);
+    }
+
+    /**
+     * @return the values a run added or changed compared to the values the tests case started with.
+     */
+    private static Map<String, Object> stored(Map<String, Object> seed, Map<String, Object> variables) {
+        Map<String, Object> stored = new HashMap<>();
+        variables.forEach((key, value) -> {
+            if (Objects.nonNull(value) && !Objects.equals(seed.get(key), value)) {
+                stored.put(key, value);
+            }
+        });
+        return stored;
+    }
+
+    private Run execute(Step step, VariableStore.Scope scope, AutomationAsserts automationAsserts, StubServer.Timings timings, long origin) {
+        SCHEDULED.set(Boolean.TRUE);
+        CoreKeyInitializers.getCustomSoftAssert().set(automationAsserts);
+        ApiKeyInitializers.getGlobalVariables().bind(scope);
+        StubServer.bindTimings(timings);
+        long started = System.nanoTime();
+        try {
+            API.getInstance().runDependency(step.file());
+            return new Run(step, scope.testValues(), started - origin, System.nanoTime() - origin, false);
+        } finally {
+            API.getInstance().cleanUpThreadLocals();
+            ApiKeyInitializers.getResponse().remove();
+            CoreKeyInitializers.getCustomSoftAssert().remove();
+            SCHEDULED.remove();
+        }
+    }
+
+    private Schedule schedule(ApiTestPlan root) {
+        return schedules.computeIfAbsent(root.getSource(), source -> {
+            Map<String, Boolean> done = new HashMap<>();
+            Deque<String> trail = new ArrayDeque<>();
+            List<Step> steps = new ArrayList<>();
+            done.put(key(source), Boolean.FALSE);
+            trail.addLast(testCaseName(source));
+            List<String> direct = new ArrayList<>();
+            for (String dependantTestCase : root.getDependantTestCases()) {
+                direct.add(visit(resolve(dependantTestCase, source), done, trail, steps));
+            }
+            return new Schedule(List.copyOf(steps), List.copyOf(direct));
+        });
+    }
+
+    /**
+     * Adds a flow after the flows it depends on, in the order the recursive runs used to start them.
+     *
+     * @return the key of the flow.
+     */
+    private static String visit(String file, Map<String, Boolean> done, Deque<String> trail, List<Step> steps) {
+        String key = key(file);
+        Boolean state = done.get(key);
+        if (Boolean.TRUE.equals(state)) {
+            return key;
+        }
+        if (Boolean.FALSE.equals(state)) {
+            throw new PrecisionTestException("DEPENDANT_TEST_CASE cycle " + String.join(" -> ", trail) + " -> " + testCaseName(file));
+        }
+        done.put(key, Boolean.FALSE);
+        trail.addLast(testCaseName(file));
+        ApiTestPlan plan = ApiTestPlanCache.getInstance().getPlan(file);
+        List<String> prerequisites = new ArrayList<>();
+        for (String dependantTestCase : plan.getDependantTestCases()) {
+            prerequisites.add(visit(resolve(dependantTestCase, file), done, trail, steps));
+        }
+        trail.removeLast();
+        done.put(key, Boolean.TRUE);
+        steps.add(new Step(key, testCaseName(file), file, List.copyOf(prerequisites)));
+        return key;
+    }
+
+    private static String resolve(String dependantTestCase, String source) {
+        String file = ApiFrameworkActions.getFileWithStartName(dependantTestCase);
+        if (Objects.isNull(file)) {
+            throw new PrecisionTestException("DEPENDANT_TEST_CASE " + dependantTestCase + " of " + testCaseName(source) + " not found");
+        }
+        return file;
+    }
+
+    private static String key(String file) {
+        return Paths.get(file).toAbsolutePath().normalize().toString();
+    }
+
+    private static String testCaseName(String file) {
+        return new File(file).getName().split("_")[0];
+    }
+
+    /**
+     * Describes the runs with the measured run time of every flow: the critical path is the chain of flows with the
+     * latest finish when each flow starts right after its dependencies, and the slack of a flow is how much later it
+     * could finish without moving the end of that chain. Reused flows take no time and their dependencies did not run.
+     *
+     * @param runs The runs in dependency order.
+     */
+    private static String report(List<Run> runs) {
+        Map<String, Run> byKey = new HashMap<>();
+        runs.forEach(run -> byKey.put(run.step().key(), run));
+        Map<String, Long> earliestFinish = new HashMap<>();
+        long total = 0;
+        for (Run run : runs) {
+            long start = prerequisites(run, byKey).stream().mapToLong(earliestFinish::get).max().orElse(0);
+            earliestFinish.put(run.step().key(), start + run.duration());
+            total = Math.max(total, earliestFinish.get(run.step().key()));
+        }
+        Map<String, Long> latestFinish = new HashMap<>();
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            Run run = runs.get(i);
+            latestFinish.putIfAbsent(run.step().key(), total);
+            long latestStart = latestFinish.get(run.step().key()) - run.duration();
+            prerequisites(run, byKey).forEach(prerequisite -> latestFinish.merge(prerequisite, latestStart, Math::min));
+        }
+
+        List<String> criticalPath = new ArrayList<>();
+        String current = runs.stream().map(run -> run.step().key()).max((a, b) -> Long.compare(earliestFinish.get(a), earliestFinish.get(b))).orElse(null);
+        while (Objects.nonNull(current)) {
+            Run run = byKey.get(current);
+            criticalPath.add(0, run.step().testCase());
+            current = prerequisites(run, byKey).stream().max((a, b) -> Long.compare(earliestFinish.get(a), earliestFinish.get(b))).orElse(null);
+        }
+        String slack = runs.stream().map(Run::step)
+                .filter(step -> latestFinish.get(step.key()) - earliestFinish.get(step.key()) > 0)
+                .map(step -> step.testCase() + " " + millis(latestFinish.get(step.key()) - earliestFinish.get(step.key())))
+                .collect(Collectors.joining(", "));
+        String reused = runs.stream().filter(Run::reused).map(run -> run.step().testCase()).collect(Collectors.joining(", "));
+        reused = reused.isEmpty() ? "" : ", reused " + reused;
+        long wall = runs.stream().mapToLong(Run::ended).max().orElse(0);
+        long sequential = runs.stream().mapToLong(Run::duration).sum();
+        return runs.size() + " flow(s) in " + millis(wall) + " (" + millis(sequential) + " one after another), critical path "
+                + String.join(" -> ", criticalPath) + " " + millis(total) + (slack.isEmpty() ? "" : ", slack " + slack) + reused;
+    }
+
+    private static List<String> prerequisites(Run run, Map<String, Run> byKey) {
+        return run.reused() ? List.of() : run.step().prerequisites().stream().filter(byKey::containsKey).collect(Collectors.toList());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.0fms", nanos / 1e6);
+    }
+
+    private record Step(String key, String testCase, String file, List<String> prerequisites) {
+    }
+
+    private record Schedule(List<Step> steps, List<String> direct) {
+    }
+
+    private record Run(Step step, Map<String, Object> variables, long started, long ended, boolean reused) {
+        private long duration() {
+            return ended - started;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.response.Response;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HttpEngine} decorator that caps the requests in flight per END_POINT host, so a high {@code ThreadCount}
+ * queues on the client instead of tripping the rate limits of a shared environment. Requests over the limit wait in
+ * a FIFO queue per host; the queue wait is tracked separately from the request latency.
+ *
+ * <p>Configuration keys in {@code testNgConfiguration.properties}:</p>
+ * <ul>
+ *   <li><b>HTTP_LIMIT_MODE</b>: {@code OFF} (default), {@code STATIC} or {@code ADAPTIVE}.</li>
+ *   <li><b>HTTP_LIMIT_MAX_IN_FLIGHT</b>: the fixed limit in STATIC mode and the starting limit in ADAPTIVE mode (default 10).</li>
+ *   <li><b>HTTP_LIMIT_MIN</b> / <b>HTTP_LIMIT_MAX</b>: bounds of the adaptive limit (default 1 and 100).</li>
+ *   <li><b>HTTP_LIMIT_LATENCY_TOLERANCE</b>: the adaptive limit is halved when the recent latency of a host exceeds
+ *   its long term latency by this factor (default 2).</li>
+ * </ul>
+ *
+ * <p>The adaptive mode is additive increase / multiplicative decrease: every successful response adds {@code 1/limit},
+ * i.e. about one slot per round of requests, while a 429, a 503 or a latency rise halves the limit. Halving happens
+ * at most once per average round trip, so one burst of throttled responses counts as a single signal.</p>
+ *
+ * @author PTA-dev
+ */
+public class HostConcurrencyLimiter implements HttpEngine {
+
+    private static final double SHORT_WEIGHT = 0.3;
+    private static final double LONG_WEIGHT = 0.02;
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final HttpEngine delegate;
+    private final boolean adaptive;
+    private final int initialLimit = ApiConfiguration.getInt("HTTP_LIMIT_MAX_IN_FLIGHT", 10);
+    private final int minLimit = Math.max(1, ApiConfiguration.getInt("HTTP_LIMIT_MIN", 1));
+    private final int maxLimit = ApiConfiguration.getInt("HTTP_LIMIT_MAX", 100);
+    private final double latencyTolerance = Double.parseDouble(ApiConfiguration.getValue("HTTP_LIMIT_LATENCY_TOLERANCE", "2"));
+    private final Map<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate The engine that sends the requests.
+     * @param mode {@code STATIC} or {@code ADAPTIVE}.
+     */
+    HostConcurrencyLimiter(HttpEngine delegate, String mode) {
+        this.delegate = delegate;
+        this.adaptive = switch (mode.toUpperCase()) {
+            case "STATIC" -> false;
+            case "ADAPTIVE" -> true;
+            default -> throw new PrecisionTestException("Unsupported HTTP_LIMIT_MODE: " + mode + ", use OFF, STATIC or ADAPTIVE");
+        };
+    }
+
+    @Override
+    public CompletableFuture<Response> sendAsync(ApiHttpRequest request) {
+        if (!delegate.isNonBlocking()) {
+            // a blocking engine would run the request on the thread that frees the slot
+            try {
+                return CompletableFuture.completedFuture(send(request));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        HostLimit host = hostLimit(request.getEndpoint());
+        long enqueued = System.nanoTime();
+        return host.acquire().thenCompose(ignored -> {
+            long started = System.nanoTime();
+            host.recordQueueWait(started - enqueued);
+            CompletableFuture<Response> sent;
+            try {
+                sent = delegate.sendAsync(request);
+            } catch (RuntimeException | Error e) {
+                // a failure before the request was handed over must not keep the slot
+                host.release(started, null, e);
+                return CompletableFuture.failedFuture(e);
+            }
+            return sent.whenComplete((response, error) -> host.release(started, response, error));
+        });
+    }
+
+    @Override
+    public Response send(ApiHttpRequest request) {
+        HostLimit host = hostLimit(request.getEndpoint());
+        long enqueued = System.nanoTime();
+        host.acquire().join();
+        long started = System.nanoTime();
+        host.recordQueueWait(started - enqueued);
+        Response response = null;
+        Throwable failure = null;
+        try {
+            response = delegate.send(request);
+            return response;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            host.release(started, response, failure);
+        }
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return delegate.isNonBlocking();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * @param endpoint An END_POINT value.
+     * @return the limit, queue wait and latency of the host the endpoint belongs to, or null when it was never called.
+     */
+    public HostLimit getHostLimit(String endpoint) {
+        return hosts.get(hostKey(endpoint));
+    }
+
+    /**
+     * @return one line per host with its current limit, queue wait and latency, sorted by host.
+     */
+    public String summary() {
+        StringJoiner joiner = new StringJoiner("\n");
+        new TreeMap<>(hosts).forEach((host, limit) -> joiner.add(host + " -> " + limit));
+        return joiner.toString();
+    }
+
+    private HostLimit hostLimit(String endpoint) {
+        return hosts.computeIfAbsent(hostKey(endpoint), key -> new HostLimit());
+    }
+
+    private static String hostKey(String endpoint) {
+        try {
+            String host = URI.create(endpoint).getHost();
+            return Objects.isNull(host) ? endpoint : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return endpoint;
+        }
+    }
+
+    /**
+     * Limit, queue and counters of one host.
+     */
+    public class HostLimit {
+        private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong queued = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+        private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private double limit = initialLimit;
+        private int inFlight;
+        private double shortLatency;
+        private double longLatency;
+        private long samples;
+        private long lastDecrease = System.nanoTime();
+
+        private CompletableFuture<Void> acquire() {
+            synchronized (this) {
+                if (waiting.isEmpty() && inFlight < currentLimit()) {
+                    inFlight++;
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> permit = new CompletableFuture<>();
+                waiting.add(permit);
+                return permit;
+            }
+        }
+
+        private void release(long started, Response response, Throwable error) {
+            long latency = System.nanoTime() - started;
+            requests.incrementAndGet();
+            totalLatencyNanos.addAndGet(latency);
+            boolean overloaded = Objects.nonNull(response) && (response.statusCode() == 429 || response.statusCode() == 503);
+            if (overloaded) {
+                throttled.incrementAndGet();
+            }
+            Queue<CompletableFuture<Void>> granted = new ArrayDeque<>();
+            synchronized (this) {
+                inFlight--;
+                if (adaptive) {
+                    adjust(latency, overloaded, Objects.nonNull(error));
+                }
+                while (!waiting.isEmpty() && inFlight < currentLimit()) {
+                    inFlight++;
+                    granted.add(waiting.poll());
+                }
+            }
+            // completed outside the lock, the continuation of an async waiter runs on this thread
+            granted.forEach(permit -> permit.complete(null));
+        }
+
+        private void adjust(long latency, boolean overloaded, boolean failed) {
+            samples++;
+            shortLatency = samples == 1 ? latency : shortLatency + SHORT_WEIGHT * (latency - shortLatency);
+            longLatency = samples == 1 ? latency : longLatency + LONG_WEIGHT * (latency - longLatency);
+            boolean latencyRise = samples > WARMUP_SAMPLES && shortLatency > latencyTolerance * longLatency;
+            long now = System.nanoTime();
+            if (overloaded || latencyRise) {
+                if (now - lastDecrease > longLatency) {
+                    limit = Math.max(minLimit, limit / 2);
+                    lastDecrease = now;
+                }
+            } else if (!failed) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+
+        private int currentLimit() {
+            return Math.max(minLimit, (int) limit);
+        }
+
+        private void recordQueueWait(long waitNanos) {
+            if (waitNanos > TimeUnit.MILLISECONDS.toNanos(1)) {
+                queued.incrementAndGet();
+            }
+            totalQueueWaitNanos.addAndGet(waitNanos);
+            maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        @Override
+        public synchronized String toString() {
+            long count = Math.max(1, requests.get());
+            return String.format("limit=%d inFlight=%d waiting=%d requests=%d queued=%d throttled=%d "
+                            + "avgQueueWait=%.2fms maxQueueWait=%.2fms avgLatency=%.2fms",
+                    currentLimit(), inFlight, waiting.size(), requests.get(), queued.get(), throttled.get(),
+                    totalQueueWaitNanos.get() / count / 1e6, maxQueueWaitNanos.get() / 1e6,
+                    totalLatencyNanos.get() / count / 1e6);
+        }
+    }
+}
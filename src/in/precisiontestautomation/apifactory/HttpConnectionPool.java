@@ -0,0 +1,247 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import lombok.Getter;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suite scoped keep-alive connection pool of the RestAssured engine. Connections are pooled per route,
+ * i.e. per scheme, host and port, so repeated calls against the same END_POINT host reuse the open socket and
+ * the negotiated TLS session instead of handshaking again for every tests case and every polling attempt.
+ *
+ * <p>Configuration keys in {@code testNgConfiguration.properties}:</p>
+ * <ul>
+ *   <li><b>HTTP_POOL_MAX_PER_ROUTE</b>: maximum open connections per scheme+host+port (default 20).
+ *   The JDK engine has no per route limit and ignores it.</li>
+ *   <li><b>HTTP_POOL_MAX_TOTAL</b>: maximum open connections over all routes (default 200).</li>
+ *   <li><b>HTTP_POOL_IDLE_EVICT_SECONDS</b>: connections idle for longer than this are closed (default 30). Connections
+ *   have no time to live, so a connection in use is kept open however old it is.</li>
+ * </ul>
+ *
+ * <p>A lease is counted as a hit when an idle connection of the route was available, otherwise as a miss.
+ * The JDK engine keeps its own connection cache, which does not expose whether a connection was reused, so its
+ * routes are reported as unmanaged with their request count only. Its cache is configured with the
+ * {@code jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout} JVM options, which this pool
+ * does not set as they apply to every {@link java.net.http.HttpClient} of the process.</p>
+ *
+ * @author PTA-dev
+ */
+public class HttpConnectionPool {
+
+    private static volatile HttpConnectionPool instance;
+
+    private final int maxPerRoute = ApiConfiguration.getInt("HTTP_POOL_MAX_PER_ROUTE", 20);
+    private final int maxTotal = ApiConfiguration.getInt("HTTP_POOL_MAX_TOTAL", 200);
+    private final long idleEvictSeconds = ApiConfiguration.getLong("HTTP_POOL_IDLE_EVICT_SECONDS", 30);
+
+    private final Map<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private volatile Managers managers;
+
+    private HttpConnectionPool() {
+    }
+
+    /**
+     * @return the pool of the running suite, created on first use.
+     */
+    public static HttpConnectionPool getInstance() {
+        if (instance == null) {
+            synchronized (HttpConnectionPool.class) {
+                if (instance == null) {
+                    instance = new HttpConnectionPool();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true once any request went through the pool.
+     */
+    public static boolean isInitialized() {
+        return instance != null;
+    }
+
+    /**
+     * Returns the RestAssured configuration bound to the pooled client. The relaxed variant trusts every
+     * certificate and host name, which replaces a per request {@code relaxedHTTPSValidation()}.
+     *
+     * @param relaxed true for the {@code RELAX_*} methods.
+     * @return The shared configuration.
+     */
+    public RestAssuredConfig restAssuredConfig(boolean relaxed) {
+        Managers current = managers();
+        return relaxed ? current.relaxedConfig : current.strictConfig;
+    }
+
+    /**
+     * The connection managers are built with the first RestAssured request, so an engine that only reports its routes
+     * here starts neither the managers nor the evictor thread.
+     */
+    private Managers managers() {
+        Managers current = managers;
+        if (current == null) {
+            synchronized (this) {
+                if (managers == null) {
+                    managers = new Managers();
+                }
+                current = managers;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Counts a request of an engine that keeps its own connection cache. Whether it reused a connection is unknown,
+     * so the route is reported as unmanaged.
+     *
+     * @param uri The request URI.
+     */
+    public void recordExternalLease(URI uri) {
+        routeStats.computeIfAbsent(routeKey(uri.getScheme(), uri.getHost(), uri.getPort()), key -> new RouteStats(false))
+                .requests.incrementAndGet();
+    }
+
+    /**
+     * @param endpoint An END_POINT value.
+     * @return hit/miss statistics of the route the endpoint belongs to, or the request count of an unmanaged route,
+     * or null when the route was never used.
+     */
+    public RouteStats getRouteStats(String endpoint) {
+        URI uri = URI.create(endpoint);
+        return routeStats.get(routeKey(uri.getScheme(), uri.getHost(), uri.getPort()));
+    }
+
+    /**
+     * @return one line per route with its hit and miss counts or, for unmanaged routes, its request count, sorted by
+     * route.
+     */
+    public String summary() {
+        StringJoiner joiner = new StringJoiner("\n");
+        new TreeMap<>(routeStats).forEach((route, stats) -> joiner.add(route + " -> " + stats));
+        return joiner.toString();
+    }
+
+    private static String routeKey(String scheme, String host, int port) {
+        String normalizedScheme = Objects.isNull(scheme) ? "http" : scheme.toLowerCase();
+        int normalizedPort = port != -1 ? port : normalizedScheme.equals("https") ? 443 : 80;
+        return normalizedScheme + "://" + String.valueOf(host).toLowerCase() + ":" + normalizedPort;
+    }
+
+    // RestAssured 5.x still builds on HttpClient 4.x, whose pooling client and default scheme registry are deprecated
+    @SuppressWarnings("deprecation")
+    private static RestAssuredConfig pooledConfig(RouteTrackingConnectionManager manager) {
+        DefaultHttpClient client = new DefaultHttpClient(manager);
+        return RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+                .reuseHttpClientInstance()
+                .httpClientFactory(() -> client));
+    }
+
+    // deprecated for the same reason as pooledConfig
+    @SuppressWarnings("deprecation")
+    private static SchemeRegistry strictSchemeRegistry() {
+        return SchemeRegistryFactory.createDefault();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static SchemeRegistry relaxedSchemeRegistry() {
+        try {
+            SchemeRegistry registry = new SchemeRegistry();
+            registry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+            registry.register(new Scheme("https", 443, new SSLSocketFactory((chain, authType) -> true,
+                    SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)));
+            return registry;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create relaxed SSL socket factory", e);
+        }
+    }
+
+    /**
+     * Lease counters of one route, or the request count of a route whose connections are managed by the engine.
+     */
+    public static class RouteStats {
+        @Getter private final AtomicLong hits = new AtomicLong();
+        @Getter private final AtomicLong misses = new AtomicLong();
+        @Getter private final AtomicLong requests = new AtomicLong();
+        @Getter private final boolean managed;
+
+        private RouteStats(boolean managed) {
+            this.managed = managed;
+        }
+
+        private void record(boolean hit) {
+            (hit ? hits : misses).incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            if (!managed) {
+                return "requests=" + requests.get() + " unmanaged (JDK HttpClient connection cache)";
+            }
+            long hitCount = hits.get();
+            long total = hitCount + misses.get();
+            return "hits=" + hitCount + " misses=" + misses.get()
+                    + " hitRatio=" + (total == 0 ? 0 : Math.round(hitCount * 100.0 / total)) + "%";
+        }
+    }
+
+    private final class Managers {
+        private final RouteTrackingConnectionManager strictManager = new RouteTrackingConnectionManager(strictSchemeRegistry());
+        private final RouteTrackingConnectionManager relaxedManager = new RouteTrackingConnectionManager(relaxedSchemeRegistry());
+        private final RestAssuredConfig strictConfig = pooledConfig(strictManager);
+        private final RestAssuredConfig relaxedConfig = pooledConfig(relaxedManager);
+        private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "api-connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Managers() {
+            evictor.scheduleWithFixedDelay(() -> {
+                for (RouteTrackingConnectionManager manager : new RouteTrackingConnectionManager[]{strictManager, relaxedManager}) {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleEvictSeconds, TimeUnit.SECONDS);
+                }
+            }, idleEvictSeconds, idleEvictSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private class RouteTrackingConnectionManager extends PoolingClientConnectionManager {
+
+        RouteTrackingConnectionManager(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+            setDefaultMaxPerRoute(maxPerRoute);
+            setMaxTotal(maxTotal);
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            routeStats.computeIfAbsent(routeKey(route.getTargetHost().getSchemeName(), route.getTargetHost().getHostName(),
+                            route.getTargetHost().getPort()), key -> new RouteStats(true))
+                    .record(getStats(route).getAvailable() > 0);
+            return super.requestConnection(route, state);
+        }
+    }
+}
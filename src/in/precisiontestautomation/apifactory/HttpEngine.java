@@ -0,0 +1,57 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import io.restassured.response.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Transport used by {@link ApiRequester} to put an {@link ApiHttpRequest} on the wire. Engines complete the
+ * returned future with a RestAssured {@link Response}, so the validation stages work unchanged whichever
+ * engine is selected with {@code HTTP_ENGINE} in {@code testNgConfiguration.properties}.
+ *
+ * @author PTA-dev
+ */
+public interface HttpEngine {
+
+    /**
+     * Sends the request without blocking the calling thread where the engine supports it.
+     *
+     * @param request The request to send.
+     * @return A future completed with the response, or exceptionally when the call fails.
+     */
+    CompletableFuture<Response> sendAsync(ApiHttpRequest request);
+
+    /**
+     * @return true when {@link #sendAsync(ApiHttpRequest)} returns before the response arrives, so callers can keep
+     * many requests in flight without a thread per request.
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+
+    /**
+     * Releases what the engine keeps open for the suite, when the suite ends. A later suite of the same run may still
+     * use the engine.
+     */
+    default void close() {
+    }
+
+    /**
+     * Sends the request and waits for the response.
+     *
+     * @param request The request to send.
+     * @return The response.
+     */
+    default Response send(ApiHttpRequest request) {
+        try {
+            return sendAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PrecisionTestException(request.getMethod() + " " + request.getEndpoint() + " failed: " + e.getCause());
+        }
+    }
+}
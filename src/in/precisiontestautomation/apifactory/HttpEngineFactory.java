@@ -0,0 +1,46 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+
+/**
+ * Resolves the {@link HttpEngine} configured with {@code HTTP_ENGINE} in {@code testNgConfiguration.properties}.
+ * Supported values are {@code RESTASSURED} (default) and {@code JDK}. The engine is created once and shared by
+ * every thread of the suite. When {@code HTTP_RECORD_MODE} is not {@code OFF} it is wrapped in a
+ * {@link RecordReplayHttpEngine}, and when {@code HTTP_LIMIT_MODE} is not {@code OFF} in a {@link HostConcurrencyLimiter}.
+ *
+ * @author PTA-dev
+ */
+public class HttpEngineFactory {
+
+    private HttpEngineFactory() {
+    }
+
+    private static final class Holder {
+        private static final HttpEngine ENGINE = limit(record(create(ApiConfiguration.getValue("HTTP_ENGINE", "RESTASSURED")),
+                ApiConfiguration.getValue("HTTP_RECORD_MODE", "OFF")), ApiConfiguration.getValue("HTTP_LIMIT_MODE", "OFF"));
+    }
+
+    /**
+     * @return the engine shared by the suite.
+     */
+    public static HttpEngine getEngine() {
+        return Holder.ENGINE;
+    }
+
+    private static HttpEngine create(String engineName) {
+        return switch (engineName.toUpperCase()) {
+            case "RESTASSURED" -> new RestAssuredHttpEngine();
+            case "JDK" -> new JdkHttpEngine();
+            default -> throw new PrecisionTestException("Unsupported HTTP_ENGINE: " + engineName + ", use RESTASSURED or JDK");
+        };
+    }
+
+    private static HttpEngine record(HttpEngine engine, String recordMode) {
+        return recordMode.equalsIgnoreCase("OFF") ? engine : new RecordReplayHttpEngine(engine, recordMode);
+    }
+
+    private static HttpEngine limit(HttpEngine engine, String limitMode) {
+        return limitMode.equalsIgnoreCase("OFF") ? engine : new HostConcurrencyLimiter(engine, limitMode);
+    }
+}
@@ -0,0 +1,175 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking {@link HttpEngine} built on {@link java.net.http.HttpClient}. Requests are sent with
+ * {@link HttpClient#sendAsync}, so many tests cases can be in flight without parking a thread per call.
+ * Two clients are kept for the whole run: a strict one and a relaxed one (trust all certificates,
+ * always follow redirects) used by the {@code RELAX_*} methods.
+ *
+ * <p>Select it with {@code HTTP_ENGINE=JDK}; {@code HTTP_REQUEST_TIMEOUT_SECONDS} bounds every call. The clients keep
+ * their own connection cache, so {@code HTTP_POOL_*} do not apply; see {@link HttpConnectionPool}.</p>
+ *
+ * @author PTA-dev
+ */
+public class JdkHttpEngine implements HttpEngine {
+
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Duration requestTimeout = Duration.ofSeconds(ApiConfiguration.getLong("HTTP_REQUEST_TIMEOUT_SECONDS", 60));
+    private final HttpClient strictClient;
+    private final HttpClient relaxedClient;
+
+    JdkHttpEngine() {
+        strictClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(requestTimeout)
+                .build();
+        relaxedClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.ALWAYS)
+                .connectTimeout(requestTimeout)
+                .sslContext(trustAllContext())
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<Response> sendAsync(ApiHttpRequest request) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = toHttpRequest(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (request.isLogged()) {
+            System.out.println("Request method:\t" + httpRequest.method() + "\nRequest URI:\t" + httpRequest.uri()
+                    + "\nHeaders:\t\t" + httpRequest.headers().map() + "\nBody:\t\t\t" + describeBody(request));
+        }
+        HttpConnectionPool.getInstance().recordExternalLease(httpRequest.uri());
+        HttpClient client = request.isRelaxed() ? relaxedClient : strictClient;
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(JdkHttpEngine::toResponse);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    private HttpRequest toHttpRequest(ApiHttpRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(buildUri(request)).timeout(requestTimeout);
+        request.getHeaders().forEach((name, value) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                builder.header(name, String.valueOf(value));
+            }
+        });
+
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.noBody();
+        if (request.isFormRequest()) {
+            publisher = HttpRequest.BodyPublishers.ofString(encode(request.getFormParams()));
+        } else if (request.getBody() != null) {
+            if (request.getHeader("Content-Type") == null) {
+                builder.header("Content-Type", "application/json; charset=UTF-8");
+            }
+            publisher = HttpRequest.BodyPublishers.ofByteArray(bodyBytes(request.getBody()));
+        }
+        return builder.method(request.getMethod(), publisher).build();
+    }
+
+    private static URI buildUri(ApiHttpRequest request) {
+        if (request.getQueryParams().isEmpty()) {
+            return URI.create(request.getEndpoint());
+        }
+        String separator = request.getEndpoint().contains("?") ? "&" : "?";
+        return URI.create(request.getEndpoint() + separator + encode(request.getQueryParams()).replace("+", "%20"));
+    }
+
+    private static String encode(Map<String, Object> parameters) {
+        StringJoiner joiner = new StringJoiner("&");
+        parameters.forEach((key, value) -> joiner.add(URLEncoder.encode(key, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+        return joiner.toString();
+    }
+
+    private static byte[] bodyBytes(Object body) {
+        if (body instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (body instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new PrecisionTestException("Error while serializing request body " + e.getOriginalMessage());
+        }
+    }
+
+    private static String describeBody(ApiHttpRequest request) {
+        if (request.isFormRequest()) {
+            return request.getFormParams().toString();
+        }
+        Object body = request.getBody();
+        return body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(body);
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> httpResponse) {
+        List<Header> headers = new ArrayList<>();
+        httpResponse.headers().map().forEach((name, values) -> values.forEach(value -> headers.add(new Header(name, value))));
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(httpResponse.statusCode())
+                .setStatusLine(httpResponse.version() + " " + httpResponse.statusCode())
+                .setHeaders(new Headers(headers))
+                .setBody(httpResponse.body());
+        httpResponse.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+        return builder.build();
+    }
+
+    private static SSLContext trustAllContext() {
+        TrustManager trustAll = new X509ExtendedTrustManager() {
+            @Override public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) { }
+            @Override public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) { }
+            @Override public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) { }
+            @Override public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) { }
+            @Override public void checkClientTrusted(X509Certificate[] chain, String authType) { }
+            @Override public void checkServerTrusted(X509Certificate[] chain, String authType) { }
+            @Override public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
+        };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{trustAll}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new PrecisionTestException("Unable to create relaxed SSL context " + e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JsonRepository body template compiled into literal byte chunks and {@code {{key}}} slots. Rendering writes the
+ * chunks and the substituted values straight into the request body bytes in one pass, so the template is neither
+ * re-read, re-scanned nor parsed into a map and serialized again for every request.
+ *
+ * <p>Values are escaped for the place the slot has in the JSON:</p>
+ * <ul>
+ *   <li>inside a string ({@code "name": "{{name}}"}) the value is written as escaped string content;</li>
+ *   <li>outside a string ({@code "age": {{age}}}) numbers, booleans, {@code null} and values that already are JSON
+ *   objects, arrays or strings are written as they are, anything else as a quoted JSON string.</li>
+ * </ul>
+ * A slot without a value is kept as {@code {{key}}}, as the plain text replacement did.
+ *
+ * <p>Compiled templates are cached per file and recompiled when the modification time or size of the file changes.</p>
+ *
+ * @author PTA-dev
+ */
+public final class JsonTemplate {
+
+    private static final Map<Path, JsonTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<byte[]> literals;
+    private final List<Slot> slots;
+    private final int literalLength;
+    private final FileTime modified;
+    private final long size;
+
+    private JsonTemplate(List<byte[]> literals, List<Slot> slots, FileTime modified, long size) {
+        this.literals = literals;
+        this.slots = slots;
+        this.literalLength = literals.stream().mapToInt(literal -> literal.length).sum();
+        this.modified = modified;
+        this.size = size;
+    }
+
+    /**
+     * @param file A JsonRepository file.
+     * @return the compiled template of the file, compiled again when the file changed since the last use.
+     */
+    public static JsonTemplate forFile(Path file) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            long size = Files.size(file);
+            return CACHE.compute(file.toAbsolutePath().normalize(), (path, cached) ->
+                    Objects.nonNull(cached) && cached.modified.equals(modified) && cached.size == size
+                            ? cached
+                            : compile(readString(path), modified, size));
+        } catch (IOException e) {
+            throw new PrecisionTestException(file.getFileName() + " Json file not found,either create one or verify file name");
+        }
+    }
+
+    /**
+     * @param json The template text.
+     * @return the compiled template.
+     */
+    public static JsonTemplate compile(String json) {
+        return compile(json, null, json.length());
+    }
+
+    private static JsonTemplate compile(String json, FileTime modified, long size) {
+        List<byte[]> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean inString = false;
+        int i = 0;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '{' && json.startsWith("{{", i)) {
+                int end = json.indexOf("}}", i + 2);
+                if (end > i + 2) {
+                    literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+                    literal.setLength(0);
+                    slots.add(new Slot(json.substring(i + 2, end), inString));
+                    i = end + 2;
+                    continue;
+                }
+            }
+            if (c == '"') {
+                inString = !inString;
+            } else if (c == '\\' && inString && i + 1 < json.length()) {
+                literal.append(c);
+                c = json.charAt(++i);
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+        return new JsonTemplate(List.copyOf(literals), List.copyOf(slots), modified, size);
+    }
+
+    /**
+     * @return the keys of the slots, in template order.
+     */
+    public List<String> getKeys() {
+        return slots.stream().map(Slot::key).toList();
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param values The values of the slots by key; other entries are ignored.
+     * @return the UTF-8 encoded JSON.
+     */
+    public byte[] render(Map<String, ?> values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(literalLength + slots.size() * 16);
+        for (int i = 0; i < slots.size(); i++) {
+            out.writeBytes(literals.get(i));
+            Slot slot = slots.get(i);
+            if (!values.containsKey(slot.key())) {
+                out.writeBytes(("{{" + slot.key() + "}}").getBytes(StandardCharsets.UTF_8));
+            } else if (slot.inString()) {
+                Object value = values.get(slot.key());
+                out.writeBytes(escape(Objects.isNull(value) ? "" : value.toString()).getBytes(StandardCharsets.UTF_8));
+            } else {
+                writeBare(out, values.get(slot.key()));
+            }
+        }
+        out.writeBytes(literals.get(slots.size()));
+        return out.toByteArray();
+    }
+
+    private static void writeBare(ByteArrayOutputStream out, Object value) {
+        if (Objects.isNull(value)) {
+            out.writeBytes(NULL);
+            return;
+        }
+        String text = value.toString();
+        if (value instanceof Number || value instanceof Boolean || isJsonValue(text.trim())) {
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        } else {
+            out.writeBytes(("\"" + escape(text) + "\"").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean isJsonValue(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '{' || first == '[' || first == '"'
+                || text.equals("true") || text.equals("false") || text.equals("null") || isJsonNumber(text);
+    }
+
+    private static boolean isJsonNumber(String text) {
+        int i = text.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        boolean fraction = false;
+        boolean exponent = false;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !fraction && !exponent && digits > 0) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && !exponent && digits > 0) {
+                exponent = true;
+                if (i + 1 < text.length() && (text.charAt(i + 1) == '+' || text.charAt(i + 1) == '-')) {
+                    i++;
+                }
+            } else {
+                return false;
+            }
+        }
+        return digits > 0 && Character.isDigit(text.charAt(text.length() - 1));
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                case '\b' -> "\\b";
+                case '\f' -> "\\f";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    private static String readString(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new PrecisionTestException(path.getFileName() + " Json file not found,either create one or verify file name");
+        }
+    }
+
+    private record Slot(String key, boolean inString) {
+    }
+}
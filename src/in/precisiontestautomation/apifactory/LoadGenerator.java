@@ -0,0 +1,231 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.response.Response;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the request of a functional tests case as a load tests, so existing {@code TestID_GroupName.csv} flows
+ * double as load profiles. The tests case runs normally first (dependencies, PreFlow values and validations),
+ * then its prepared request is replayed against the same endpoint.
+ *
+ * <p>Configuration keys in {@code testNgConfiguration.properties}:</p>
+ * <ul>
+ *   <li><b>LOAD_TEST_IDS</b>: comma separated tests ids to load tests, empty disables the mode.</li>
+ *   <li><b>LOAD_MODE</b>: {@code RATE} sends at a fixed arrival rate of {@code LOAD_RPS} requests per second (open model),
+ *   {@code CONCURRENCY} keeps {@code LOAD_CONCURRENCY} requests in flight (closed model).</li>
+ *   <li><b>LOAD_DURATION_SECONDS</b> and <b>LOAD_WARMUP_SECONDS</b>: measured phase and the discarded warm-up before it.</li>
+ *   <li><b>LOAD_MAX_THREADS</b>: threads sending RATE requests through a blocking engine (default 200); requests beyond
+ *   that wait for a free thread.</li>
+ * </ul>
+ *
+ * <p>Latencies are recorded in an HDR histogram. In RATE mode they are corrected for coordinated omission: every
+ * latency is measured from the moment the request was scheduled to start, not from when it was actually sent, so time
+ * spent waiting for a sending thread counts too. CONCURRENCY mode has no send schedule to correct against, so its
+ * latencies are recorded as measured and a stalled host shows up as lower throughput instead.</p>
+ *
+ * <p>The request is replayed without the console logging of the engines, which would otherwise be part of every
+ * measured latency.</p>
+ *
+ * @author PTA-dev
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpEngine engine;
+    private final String mode = ApiConfiguration.getValue("LOAD_MODE", "RATE").toUpperCase();
+    private final int requestsPerSecond = ApiConfiguration.getInt("LOAD_RPS", 10);
+    private final int concurrency = ApiConfiguration.getInt("LOAD_CONCURRENCY", 10);
+    private final int maxThreads = ApiConfiguration.getInt("LOAD_MAX_THREADS", 200);
+    private final long durationNanos = TimeUnit.SECONDS.toNanos(ApiConfiguration.getLong("LOAD_DURATION_SECONDS", 60));
+    private final long warmupNanos = TimeUnit.SECONDS.toNanos(ApiConfiguration.getLong("LOAD_WARMUP_SECONDS", 10));
+
+    private LoadGenerator(HttpEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @param engine The engine the load is sent through.
+     * @return a generator configured from {@code testNgConfiguration.properties}.
+     */
+    public static LoadGenerator getInstance(HttpEngine engine) {
+        return new LoadGenerator(engine);
+    }
+
+    /**
+     * @param testCaseName A tests id.
+     * @return true when the tests id is listed in {@code LOAD_TEST_IDS}.
+     */
+    public static boolean isSelected(String testCaseName) {
+        return Arrays.stream(ApiConfiguration.getValue("LOAD_TEST_IDS", "").split(","))
+                .map(String::trim)
+                .anyMatch(testCaseName::equals);
+    }
+
+    /**
+     * Runs the warm-up and the measured phase.
+     *
+     * @param request The prepared request of the tests case.
+     * @param expectedStatusCode The RESPONSE:CODE; any other status counts as an error.
+     * @return the measurements of the measured phase.
+     */
+    public LoadResult run(ApiHttpRequest request, String expectedStatusCode) {
+        ApiHttpRequest replayed = request.withoutLogging();
+        int threads = Math.max(1, mode.equals("CONCURRENCY") ? concurrency : maxThreads);
+        ExecutorService dispatcher = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "api-load-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (warmupNanos > 0) {
+                runPhase(replayed, expectedStatusCode, warmupNanos, new LoadResult(mode), dispatcher);
+            }
+            LoadResult measured = new LoadResult(mode);
+            runPhase(replayed, expectedStatusCode, durationNanos, measured, dispatcher);
+            return measured;
+        } finally {
+            dispatcher.shutdownNow();
+        }
+    }
+
+    private void runPhase(ApiHttpRequest request, String expectedStatusCode, long phaseNanos, LoadResult result,
+                          ExecutorService dispatcher) {
+        long phaseStart = System.nanoTime();
+        switch (mode) {
+            case "RATE" -> runOpenModel(request, expectedStatusCode, phaseStart, phaseNanos, result, dispatcher);
+            case "CONCURRENCY" -> runClosedModel(request, expectedStatusCode, phaseStart, phaseNanos, result, dispatcher);
+            default -> throw new PrecisionTestException("Unsupported LOAD_MODE: " + mode + ", use RATE or CONCURRENCY");
+        }
+        result.elapsedNanos = System.nanoTime() - phaseStart;
+    }
+
+    private void runOpenModel(ApiHttpRequest request, String expectedStatusCode, long phaseStart, long phaseNanos,
+                              LoadResult result, ExecutorService dispatcher) {
+        long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, requestsPerSecond);
+        Phaser inFlight = new Phaser(1);
+        for (long i = 0; ; i++) {
+            long intendedStart = phaseStart + i * period;
+            if (intendedStart - phaseStart >= phaseNanos) {
+                break;
+            }
+            parkUntil(intendedStart);
+            inFlight.register();
+            if (engine.isNonBlocking()) {
+                engine.sendAsync(request).whenComplete((response, error) -> {
+                    result.record(intendedStart, response, error, expectedStatusCode);
+                    inFlight.arriveAndDeregister();
+                });
+            } else {
+                dispatcher.execute(() -> {
+                    Response response = null;
+                    Throwable error = null;
+                    try {
+                        response = engine.send(request);
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    result.record(intendedStart, response, error, expectedStatusCode);
+                    inFlight.arriveAndDeregister();
+                });
+            }
+        }
+        inFlight.arriveAndAwaitAdvance();
+    }
+
+    private void runClosedModel(ApiHttpRequest request, String expectedStatusCode, long phaseStart, long phaseNanos,
+                                LoadResult result, ExecutorService dispatcher) {
+        Phaser workers = new Phaser(1);
+        for (int worker = 0; worker < Math.max(1, concurrency); worker++) {
+            workers.register();
+            dispatcher.execute(() -> {
+                try {
+                    while (System.nanoTime() - phaseStart < phaseNanos) {
+                        long start = System.nanoTime();
+                        Response response = null;
+                        Throwable error = null;
+                        try {
+                            response = engine.send(request);
+                        } catch (RuntimeException e) {
+                            error = e;
+                        }
+                        result.record(start, response, error, expectedStatusCode);
+                    }
+                } finally {
+                    workers.arriveAndDeregister();
+                }
+            });
+        }
+        workers.arriveAndAwaitAdvance();
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Latency histogram (microseconds) and error counters of one phase.
+     */
+    public static class LoadResult {
+        private final String mode;
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile long elapsedNanos;
+
+        LoadResult(String mode) {
+            this.mode = mode;
+        }
+
+        void record(long start, Response response, Throwable error, String expectedStatusCode) {
+            long latencyMicros = Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            requests.incrementAndGet();
+            if (Objects.nonNull(error) || Objects.isNull(response)
+                    || (Objects.nonNull(expectedStatusCode) && !String.valueOf(response.statusCode()).equals(expectedStatusCode))) {
+                errors.incrementAndGet();
+            }
+            histogram.recordValue(latencyMicros);
+        }
+
+        /**
+         * @return the latency histogram in microseconds.
+         */
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        /**
+         * @return the share of requests that failed or returned an unexpected status, in percent.
+         */
+        public double getErrorRate() {
+            return requests.get() == 0 ? 0 : errors.get() * 100.0 / requests.get();
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            return String.format("mode=%s requests=%d errors=%d (%.2f%%) throughput=%.1f rps p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                    mode, requests.get(), errors.get(), getErrorRate(), seconds == 0 ? 0 : requests.get() / seconds,
+                    percentile(50), percentile(90), percentile(99), percentile(99.9), histogram.getMaxValue() / 1000.0);
+        }
+
+        private double percentile(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
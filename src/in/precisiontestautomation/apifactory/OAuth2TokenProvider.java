@@ -0,0 +1,94 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The built-in {@link TokenProvider} named {@code OAuth2}: requests a token from an OAuth2 token endpoint with the
+ * client credentials grant, or the password grant when a {@code username} is given.
+ *
+ * <p>Credentials: {@code token_url} (required), {@code client_id}, {@code client_secret}, {@code username},
+ * {@code password}, and optionally {@code grant_type} and {@code client_auth}. The client is authenticated with HTTP
+ * Basic by default, or with {@code client_id} / {@code client_secret} form parameters when {@code client_auth} is
+ * {@code body}. Any other credential, e.g. {@code scope} or {@code audience}, is sent as form parameter. A response
+ * without {@code expires_in} is taken to be valid for {@code TOKEN_DEFAULT_TTL_SECONDS}.</p>
+ *
+ * @author PTA-dev
+ */
+public class OAuth2TokenProvider implements TokenProvider {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> OWN_KEYS = Set.of("token_url", "grant_type", "client_auth");
+    private static final Set<String> CLIENT_KEYS = Set.of("client_id", "client_secret");
+
+    private final long defaultTtlSeconds = ApiConfiguration.getLong("TOKEN_DEFAULT_TTL_SECONDS", 300);
+
+    @Override
+    public String getName() {
+        return "OAuth2";
+    }
+
+    @Override
+    public Token fetch(Map<String, String> credentials) {
+        String tokenUrl = credentials.get("token_url");
+        if (Objects.isNull(tokenUrl) || tokenUrl.isBlank()) {
+            throw new PrecisionTestException("OAuth2 token provider needs a token_url AUTH:KEY");
+        }
+        boolean basic = !"body".equalsIgnoreCase(credentials.getOrDefault("client_auth", "basic"));
+        Map<String, Object> form = new LinkedHashMap<>();
+        form.put("grant_type", credentials.getOrDefault("grant_type",
+                credentials.containsKey("username") ? "password" : "client_credentials"));
+        credentials.forEach((key, value) -> {
+            if (!OWN_KEYS.contains(key) && !(basic && CLIENT_KEYS.contains(key))) {
+                form.put(key, value);
+            }
+        });
+
+        ApiHttpRequest request = ApiHttpRequest.of("POST", tokenUrl);
+        request.getHeaders().put("Content-Type", "application/x-www-form-urlencoded");
+        request.getHeaders().put("Accept", "application/json");
+        if (basic && credentials.containsKey("client_id")) {
+            String client = encode(credentials.get("client_id")) + ":" + encode(credentials.getOrDefault("client_secret", ""));
+            request.getHeaders().put("Authorization", "Basic "
+                    + Base64.getEncoder().encodeToString(client.getBytes(StandardCharsets.UTF_8)));
+        }
+        request.getFormParams().putAll(form);
+
+        Instant requestedAt = Instant.now();
+        Response response = HttpEngineFactory.getEngine().send(request);
+        if (response.getStatusCode() / 100 != 2) {
+            throw new PrecisionTestException("OAuth2 token request to " + tokenUrl + " failed with status "
+                    + response.getStatusCode() + ": " + response.asString());
+        }
+        JsonNode json;
+        try {
+            json = MAPPER.readTree(response.asByteArray());
+        } catch (IOException e) {
+            throw new PrecisionTestException("OAuth2 token response of " + tokenUrl + " is not JSON: " + e.getMessage());
+        }
+        JsonNode accessToken = json.path("access_token");
+        if (!accessToken.isTextual() || accessToken.asText().isEmpty()) {
+            throw new PrecisionTestException("OAuth2 token response of " + tokenUrl + " has no access_token");
+        }
+        long expiresIn = json.path("expires_in").asLong(defaultTtlSeconds);
+        // Counted from the request, so the token is never taken to live longer than the server meant
+        return new Token(accessToken.asText(), requestedAt.plusSeconds(expiresIn > 0 ? expiresIn : defaultTtlSeconds));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiKeyInitializers;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The body of one response, parsed at most once per form and shared by the validation stages of a tests case
+ * (RESPONSE:JSON_PATH checks, RESPONSE:STORE_VALUE and schema validation) instead of each stage parsing it again.
+ * Schema validation streams the body tokens, or walks the tree when another stage already built it.
+ * Every form is built lazily on first use, so a tests case without JSON validations never parses the body.
+ *
+ * <p>The model of the current response is kept per thread and replaced as soon as
+ * {@link ApiKeyInitializers#getResponse()} holds another response. Callbacks running on HTTP client threads use a
+ * {@link #detached(Response)} model instead, which the tests case thread adopts with {@link #bind()}.</p>
+ *
+ * @author PTA-dev
+ */
+public final class ParsedResponse {
+
+    private static final ThreadLocal<ParsedResponse> CURRENT = new ThreadLocal<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Response response;
+    private String body;
+    private JsonPath jsonPath;
+    private JsonNode tree;
+
+    private ParsedResponse(Response response) {
+        this.response = response;
+    }
+
+    /**
+     * @return the parsed model of the response of the current tests case.
+     */
+    public static ParsedResponse current() {
+        return of(ApiKeyInitializers.getResponse().get());
+    }
+
+    /**
+     * Returns the parsed model of a response, reusing the model of the calling thread when it belongs to the same
+     * response, e.g. when a polled response becomes the response of the tests case.
+     *
+     * @param response The response.
+     * @return the parsed model.
+     */
+    public static ParsedResponse of(Response response) {
+        Objects.requireNonNull(response, "No response received yet");
+        ParsedResponse parsed = CURRENT.get();
+        if (Objects.isNull(parsed) || parsed.response != response) {
+            parsed = new ParsedResponse(response);
+            CURRENT.set(parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Returns a model of the response that is not kept by the calling thread, for code completing a future on a
+     * thread that does not belong to the tests case.
+     *
+     * @param response The response.
+     * @return the parsed model.
+     */
+    public static ParsedResponse detached(Response response) {
+        return new ParsedResponse(Objects.requireNonNull(response, "No response received yet"));
+    }
+
+    /**
+     * Makes this model the model of the calling thread, so the forms already parsed are reused by
+     * {@link #current()} while {@link ApiKeyInitializers#getResponse()} holds the same response.
+     */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Drops the model of the calling thread, so a pooled thread does not keep the body of its last tests case.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the response.
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the body as text.
+     */
+    public String body() {
+        if (Objects.isNull(body)) {
+            body = response.getBody().asString();
+        }
+        return body;
+    }
+
+    /**
+     * @return the body parsed for GPath expressions.
+     */
+    public JsonPath jsonPath() {
+        if (Objects.isNull(jsonPath)) {
+            jsonPath = JsonPath.from(body());
+        }
+        return jsonPath;
+    }
+
+    /**
+     * @return the body parsed into a Jackson tree.
+     */
+    public JsonNode tree() {
+        if (Objects.isNull(tree)) {
+            try {
+                tree = MAPPER.readTree(body());
+            } catch (IOException e) {
+                throw new PrecisionTestException("Response body is not valid JSON " + e.getLocalizedMessage());
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * @return a token parser over the body, walking the Jackson tree when it was already built and streaming the body
+     * bytes otherwise.
+     * @throws IOException If the parser cannot be created.
+     */
+    public JsonParser parser() throws IOException {
+        return Objects.nonNull(tree) ? tree.traverse(MAPPER) : MAPPER.getFactory().createParser(response.asByteArray());
+    }
+}
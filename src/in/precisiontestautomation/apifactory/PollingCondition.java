@@ -0,0 +1,167 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.response.Response;
+import lombok.Getter;
+import org.awaitility.core.ConditionTimeoutException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Wait condition declared by the first {@code RESPONSE:EXPECTED_VALUE} cell of a tests case:
+ *
+ * <pre>value[:timeoutSeconds[:pollIntervalMillis[:CONTAINS|JSON_PATH]]]</pre>
+ *
+ * <ul>
+ *   <li><b>timeoutSeconds</b>: how long to poll, 30 seconds when omitted.</li>
+ *   <li><b>pollIntervalMillis</b>: first backoff, {@code POLL_INTERVAL_MS} (100 ms) when omitted. The backoff grows
+ *   by {@code POLL_BACKOFF_MULTIPLIER} up to {@code POLL_MAX_INTERVAL_MS} with jitter, see {@link BackoffPollInterval}.</li>
+ *   <li><b>CONTAINS</b> (default): the response body contains the value. <b>JSON_PATH</b>: the value found at the
+ *   first {@code RESPONSE:JSON_PATH} entry equals the value.</li>
+ * </ul>
+ *
+ * The response that satisfied the condition is the result of the poll, so the request is never repeated once it matched.
+ * Polls are chained on the futures of the {@link HttpEngine}, so a waiting tests case holds no thread between polls.
+ * The next poll is timed by a scheduler of its own; with a blocking engine it is sent from a pool of poll threads, so
+ * the timer is never held by a request.
+ *
+ * @author PTA-dev
+ */
+public class PollingCondition {
+
+    private static final String NONE = "NONE";
+
+    private static final class Pollers {
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "api-poll-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private static final AtomicInteger COUNT = new AtomicInteger();
+        private static final ExecutorService SENDERS = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "api-poll-" + COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Getter private final String expectedValue;
+    @Getter private final Duration timeout;
+    private final Duration interval;
+    private final boolean jsonPathMatch;
+    private final String jsonPath;
+
+    private PollingCondition(String expectedValue, Duration timeout, Duration interval, boolean jsonPathMatch, String jsonPath) {
+        this.expectedValue = expectedValue;
+        this.timeout = timeout;
+        this.interval = interval;
+        this.jsonPathMatch = jsonPathMatch;
+        this.jsonPath = jsonPath;
+    }
+
+    /**
+     * Parses the first expected value cell.
+     *
+     * @param cell The resolved first {@code RESPONSE:EXPECTED_VALUE} cell.
+     * @param jsonPath The first {@code RESPONSE:JSON_PATH} entry, used by the JSON_PATH match.
+     * @return the parsed condition.
+     */
+    public static PollingCondition parse(Object cell, String jsonPath) {
+        String[] parts = String.valueOf(cell).split(":");
+        Duration timeout = Duration.ofSeconds(parts.length > 1 && !parts[1].isBlank() ? Long.parseLong(parts[1].trim()) : 30);
+        Duration interval = Duration.ofMillis(parts.length > 2 && !parts[2].isBlank()
+                ? Long.parseLong(parts[2].trim())
+                : ApiConfiguration.getLong("POLL_INTERVAL_MS", 100));
+        boolean jsonPathMatch = parts.length > 3 && parts[3].trim().equalsIgnoreCase("JSON_PATH");
+        if (jsonPathMatch && (Objects.isNull(jsonPath) || jsonPath.isBlank() || jsonPath.equals(NONE))) {
+            throw new PrecisionTestException("RESPONSE:EXPECTED_VALUE:JSON_PATH polling needs the first RESPONSE:JSON_PATH entry");
+        }
+        return new PollingCondition(parts.length == 0 ? "" : parts[0], timeout, interval, jsonPathMatch, jsonPath);
+    }
+
+    /**
+     * @return false when the expected value is NONE and a single request is enough.
+     */
+    public boolean isPolling() {
+        return !expectedValue.equals(NONE);
+    }
+
+    /**
+     * Sends the request until the condition holds or the timeout elapses without holding a thread in between: the
+     * next poll is scheduled when the previous response arrived, after the backoff of {@link BackoffPollInterval}.
+     * A failed send fails the poll.
+     *
+     * @param sender Sends the request once.
+     * @return a future completed with the first response satisfying the condition, parsed as far as the match
+     * needed it, or exceptionally with a {@link ConditionTimeoutException} when no response matched within the timeout.
+     */
+    public CompletableFuture<ParsedResponse> awaitAsync(Supplier<CompletableFuture<Response>> sender) {
+        if (!isPolling()) {
+            return send(sender).thenApply(ParsedResponse::detached);
+        }
+        BackoffPollInterval backoff = new BackoffPollInterval(interval,
+                Duration.ofMillis(ApiConfiguration.getLong("POLL_MAX_INTERVAL_MS", 5000)),
+                Double.parseDouble(ApiConfiguration.getValue("POLL_BACKOFF_MULTIPLIER", "2")));
+        CompletableFuture<ParsedResponse> result = new CompletableFuture<>();
+        poll(sender, backoff, 1, System.nanoTime() + timeout.toNanos(), result);
+        return result;
+    }
+
+    private void poll(Supplier<CompletableFuture<Response>> sender, BackoffPollInterval backoff, int pollCount,
+                      long deadline, CompletableFuture<ParsedResponse> result) {
+        send(sender).whenComplete((response, error) -> {
+            if (Objects.nonNull(error)) {
+                result.completeExceptionally(error instanceof CompletionException && Objects.nonNull(error.getCause())
+                        ? error.getCause() : error);
+                return;
+            }
+            ParsedResponse parsed = ParsedResponse.detached(response);
+            if (matches(parsed)) {
+                result.complete(parsed);
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                result.completeExceptionally(new ConditionTimeoutException("Response did not " + (jsonPathMatch
+                        ? "have " + expectedValue + " at " + jsonPath : "contain " + expectedValue) + " within " + timeout));
+                return;
+            }
+            Duration wait = backoff.next(pollCount);
+            Executor next = HttpEngineFactory.getEngine().isNonBlocking() ? Runnable::run : Pollers.SENDERS;
+            Pollers.TIMER.schedule(() -> next.execute(() -> poll(sender, backoff, pollCount + 1, deadline, result)),
+                    Math.min(wait.toNanos(), remaining), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private static CompletableFuture<Response> send(Supplier<CompletableFuture<Response>> sender) {
+        try {
+            return sender.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean matches(ParsedResponse response) {
+        if (!jsonPathMatch) {
+            return response.body().contains(expectedValue);
+        }
+        try {
+            Object actualValue = CompiledJsonPath.of(jsonPath).read(response);
+            return expectedValue.equals(String.valueOf(actualValue));
+        } catch (RuntimeException e) {
+            // the body is not JSON yet, keep polling
+            return false;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * {@link HttpEngine} decorator that records every exchange to a {@link TrafficStore} or serves the responses from it
+ * without touching the network, selected with {@code HTTP_RECORD_MODE} in {@code testNgConfiguration.properties}:
+ *
+ * <ul>
+ *   <li><b>RECORD</b>: requests go through the configured engine and every response is appended to the store.</li>
+ *   <li><b>REPLAY</b>: responses come from the store; a request that was never recorded fails the tests case.</li>
+ * </ul>
+ *
+ * <p>An exchange is keyed by the SHA-256 of the method, the normalized URL (lower case scheme and host, default
+ * port dropped, query parameters sorted), the sorted request headers and the SHA-256 of the body. Headers listed in
+ * {@code HTTP_RECORD_IGNORE_HEADERS} (by default Authorization, Date and User-Agent) are left out of the key, so
+ * fresh tokens do not break the replay. The store lives in {@code HTTP_RECORD_DIR}; it is opened with the first request
+ * of a suite and closed when the suite ends.</p>
+ *
+ * @author PTA-dev
+ */
+public class RecordReplayHttpEngine implements HttpEngine {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpEngine delegate;
+    private final boolean replay;
+    private final String mode;
+    private final Path directory;
+    private volatile TrafficStore store;
+    private final Set<String> ignoredHeaders = Arrays.stream(ApiConfiguration
+                    .getValue("HTTP_RECORD_IGNORE_HEADERS", "Authorization,Date,User-Agent").split(","))
+            .map(header -> header.trim().toLowerCase())
+            .filter(header -> !header.isEmpty())
+            .collect(Collectors.toSet());
+
+    /**
+     * @param delegate The engine that sends the requests while recording.
+     * @param mode {@code RECORD} or {@code REPLAY}.
+     */
+    RecordReplayHttpEngine(HttpEngine delegate, String mode) {
+        this.delegate = delegate;
+        this.replay = switch (mode.toUpperCase()) {
+            case "RECORD" -> false;
+            case "REPLAY" -> true;
+            default -> throw new PrecisionTestException("Unsupported HTTP_RECORD_MODE: " + mode + ", use OFF, RECORD or REPLAY");
+        };
+        this.mode = mode.toUpperCase();
+        this.directory = Paths.get(ApiConfiguration.getValue("HTTP_RECORD_DIR",
+                System.getProperty("user.dir") + "/test_data/api/recordings"));
+    }
+
+    @Override
+    public CompletableFuture<Response> sendAsync(ApiHttpRequest request) {
+        byte[] key;
+        try {
+            key = key(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (replay) {
+            TrafficStore.Record record = store().read(key);
+            if (record == null) {
+                return CompletableFuture.failedFuture(new PrecisionTestException("No recorded response for "
+                        + requestLine(request) + " (key " + HexFormat.of().formatHex(key) + ")"));
+            }
+            return CompletableFuture.completedFuture(toResponse(record));
+        }
+        TrafficStore current = store();
+        return delegate.sendAsync(request).thenApply(response -> {
+            current.append(key, toRecord(request, response));
+            return response;
+        });
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return replay || delegate.isNonBlocking();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                throw new PrecisionTestException("Unable to close the traffic store in " + directory + " " + e.getLocalizedMessage());
+            } finally {
+                store = null;
+            }
+        }
+        delegate.close();
+    }
+
+    private TrafficStore store() {
+        TrafficStore current = store;
+        if (current == null) {
+            synchronized (this) {
+                if (store == null) {
+                    store = new TrafficStore(directory);
+                    System.out.println("HTTP_RECORD_MODE " + mode + " with " + store.size() + " recorded exchanges");
+                }
+                current = store;
+            }
+        }
+        return current;
+    }
+
+    private byte[] key(ApiHttpRequest request) {
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + "\n" + normalizedUrl(request) + "\n").getBytes(StandardCharsets.UTF_8));
+        new TreeMap<>(request.getHeaders().entrySet().stream()
+                .filter(header -> !ignoredHeaders.contains(header.getKey().toLowerCase()))
+                .collect(Collectors.toMap(header -> header.getKey().toLowerCase(), header -> String.valueOf(header.getValue()),
+                        (first, second) -> second)))
+                .forEach((name, value) -> digest.update((name + ":" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+        digest.update(sha256().digest(bodyBytes(request)));
+        return digest.digest();
+    }
+
+    private static String normalizedUrl(ApiHttpRequest request) {
+        URI uri = URI.create(request.getEndpoint());
+        String scheme = Objects.isNull(uri.getScheme()) ? "http" : uri.getScheme().toLowerCase();
+        int port = uri.getPort() == -1 || (scheme.equals("http") && uri.getPort() == 80)
+                || (scheme.equals("https") && uri.getPort() == 443) ? -1 : uri.getPort();
+        Set<String> query = new TreeSet<>();
+        if (uri.getRawQuery() != null) {
+            query.addAll(Arrays.asList(uri.getRawQuery().split("&")));
+        }
+        request.getQueryParams().forEach((name, value) -> query.add(name + "=" + value));
+        return scheme + "://" + String.valueOf(uri.getHost()).toLowerCase() + (port == -1 ? "" : ":" + port)
+                + (Objects.isNull(uri.getRawPath()) || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                + (query.isEmpty() ? "" : "?" + String.join("&", query));
+    }
+
+    private static byte[] bodyBytes(ApiHttpRequest request) {
+        Object body = request.isFormRequest() ? new TreeMap<>(request.getFormParams()) : request.getBody();
+        if (body == null) {
+            return new byte[0];
+        }
+        if (body instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (body instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new PrecisionTestException("Error while serializing request body " + e.getOriginalMessage());
+        }
+    }
+
+    private static String requestLine(ApiHttpRequest request) {
+        return request.getMethod() + " " + normalizedUrl(request);
+    }
+
+    private static TrafficStore.Record toRecord(ApiHttpRequest request, Response response) {
+        List<String[]> headers = new ArrayList<>();
+        response.getHeaders().forEach(header -> headers.add(new String[]{header.getName(), header.getValue()}));
+        return new TrafficStore.Record(requestLine(request), response.statusCode(), String.valueOf(response.getStatusLine()),
+                headers, response.getBody().asByteArray());
+    }
+
+    private static Response toResponse(TrafficStore.Record record) {
+        List<Header> headers = new ArrayList<>();
+        record.headers().forEach(header -> headers.add(new Header(header[0], header[1])));
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(record.statusCode())
+                .setStatusLine(record.statusLine())
+                .setHeaders(new Headers(headers))
+                .setBody(record.body());
+        record.headers().stream()
+                .filter(header -> header[0].equalsIgnoreCase("Content-Type"))
+                .findFirst()
+                .ifPresent(header -> builder.setContentType(header[1]));
+        return builder.build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PrecisionTestException("SHA-256 is not available " + e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Default {@link HttpEngine} that executes the request through RestAssured on the calling thread.
+ * The returned future is always already completed. Connections come from the {@link HttpConnectionPool};
+ * the relaxed pool already trusts every certificate, so {@code RELAX_*} calls only enable redirects here.
+ *
+ * @author PTA-dev
+ */
+public class RestAssuredHttpEngine implements HttpEngine {
+
+    @Override
+    public CompletableFuture<Response> sendAsync(ApiHttpRequest request) {
+        try {
+            return CompletableFuture.completedFuture(send(request));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Response send(ApiHttpRequest request) {
+        RequestSpecification specification = RestAssured.given()
+                .config(HttpConnectionPool.getInstance().restAssuredConfig(request.isRelaxed()))
+                .baseUri(request.getEndpoint());
+        if (request.isLogged()) {
+            specification.log().all();
+        }
+
+        if (!request.getHeaders().isEmpty()) {
+            specification.headers(request.getHeaders());
+        }
+        if (!request.getQueryParams().isEmpty()) {
+            specification.queryParams(request.getQueryParams());
+        }
+        if (request.isFormRequest()) {
+            specification.formParams(request.getFormParams());
+        } else if (request.getBody() != null) {
+            specification.body(request.getBody());
+        }
+        if (request.isRelaxed()) {
+            specification.redirects().follow(true);
+        }
+
+        Response response = switch (request.getMethod()) {
+            case "GET" -> specification.get();
+            case "POST" -> specification.post();
+            case "PUT" -> specification.put();
+            case "DELETE" -> specification.delete();
+            case "PATCH" -> specification.patch();
+            default -> throw new PrecisionTestException("Unsupported HTTP method: " + request.getMethod());
+        };
+        // buffering the body hands the pooled connection back before the response is validated
+        response.getBody().asByteArray();
+        return response;
+    }
+}
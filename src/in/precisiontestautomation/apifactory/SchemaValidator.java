@@ -0,0 +1,563 @@
+package in.precisiontestautomation.apifactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+import in.precisiontestautomation.utils.ApiKeyInitializers;
+import in.precisiontestautomation.utils.SchemaTypeRule;
+import in.precisiontestautomation.utils.ValueExpression;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RESPONSE:SCHEMA validation in one streaming pass over the response tokens, against the schema file compiled once
+ * into a tree of expected fields.
+ *
+ * <p>The response must have exactly the leaf paths of the schema, array elements included, as before: a leaf missing
+ * from the response, a leaf the schema does not know or an object where the schema expects an array (or a value) makes
+ * the {@code Schema validation} assertion fail. Every schema leaf
+ * is checked as it streams by: {@code @Type} values with their compiled {@link SchemaTypeRule}, {@code ApiGlobalVariables:name}
+ * against the global variable and anything else for equality. A {@code @ARRAY} or {@code @JSON_OBJECT} leaf accepts the
+ * whole array or object at its path.</p>
+ *
+ * <p>The differences are reported as missing, extra and type mismatch counts, followed by the differing names grouped
+ * by parent path with array indexes folded into {@code [*]}, e.g. {@code extra under items[*]: legacyId x4999 (e.g.
+ * items[0].legacyId)}. At most {@value #MAX_GROUPS} groups of {@value #MAX_NAMES} names are kept and the rest is only
+ * counted, so a response with thousands of differences still gives a short assertion message.</p>
+ *
+ * <p>A field named {@code name[*]} applies its value to every element of the array {@code name} instead of listing the
+ * elements one by one, and a schema that is only {@code {"[*]": ...}} does the same for an array at its own path (the
+ * response itself, or the element of an enclosing wildcard). {@code name[*|POLICY]} checks a sample of the elements
+ * only, where the policy is {@code FIRST:k}, {@code LAST:k}, {@code EVERY:n} or {@code RANDOM:k[:seed]}; a wildcard
+ * without a policy uses {@code SCHEMA_WILDCARD_SAMPLE} ({@code ALL} by default). Elements outside the sample are
+ * skipped without any check, so the checks do not grow with the length of the array.</p>
+ *
+ * <p>Only the current path and one flag per schema field of the open objects are kept, so memory does not grow with
+ * the size of the response.</p>
+ *
+ * @author PTA-dev
+ */
+public final class SchemaValidator {
+
+    private static final int MAX_GROUPS = 10;
+    private static final int MAX_NAMES = 5;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, SchemaValidator> CACHE = new ConcurrentHashMap<>();
+
+    private final Node root;
+
+    private SchemaValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param schemaJson The content of a RESPONSE:SCHEMA file.
+     * @return the compiled schema, compiled once per distinct content.
+     */
+    public static SchemaValidator of(String schemaJson) {
+        return CACHE.computeIfAbsent(schemaJson, json -> {
+            try {
+                return new SchemaValidator(compile(MAPPER.readTree(json), 0));
+            } catch (IOException e) {
+                throw new PrecisionTestException("RESPONSE:SCHEMA is not valid JSON " + e.getLocalizedMessage());
+            }
+        });
+    }
+
+    /**
+     * Validates a response and reports the result to the soft assertions of the tests case.
+     *
+     * @param response The response.
+     */
+    public void validate(ParsedResponse response) {
+        Differences differences = new Differences();
+        try (JsonParser parser = response.parser()) {
+            if (Objects.nonNull(parser.nextToken())) {
+                walk(parser, root, new StringBuilder(), differences);
+            } else if (root.hasLeaves()) {
+                differences.add(Kind.INVALID, "", "empty response body");
+            }
+        } catch (IOException e) {
+            differences.add(Kind.INVALID, "", "response body is not valid JSON " + e.getLocalizedMessage());
+        }
+        ApiKeyInitializers.getCustomSoftAssert().get().assertTrue("Schema validation", differences.count == 0,
+                "Response matches the schema",
+                "Response does not match the schema: " + differences.report(),
+                false, null);
+    }
+
+    private static void walk(JsonParser parser, Node schema, StringBuilder path, Differences differences) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (Objects.isNull(schema)) {
+            skipUnexpected(parser, token, path, differences);
+        } else if (Objects.nonNull(schema.rule)) {
+            Object actual = token.isStructStart() ? parser.<JsonNode>readValueAsTree() : scalar(parser, token);
+            schema.check(path.toString(), actual);
+        } else if (token == JsonToken.START_OBJECT && Objects.nonNull(schema.fields)) {
+            boolean[] seen = new boolean[schema.fields.size()];
+            int length = path.length();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                Node child = schema.fields.get(name);
+                if (Objects.nonNull(child)) {
+                    seen[child.ordinal] = true;
+                }
+                if (length > 0) {
+                    path.append('.');
+                }
+                walk(parser, child, path.append(name), differences);
+                path.setLength(length);
+            }
+            for (Node child : schema.fields.values()) {
+                if (!seen[child.ordinal] && child.hasLeaves()) {
+                    differences.add(Kind.MISSING, (length > 0 ? path + "." : "") + child.name, null);
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY && Objects.nonNull(schema.each)) {
+            walkEach(parser, schema, path, differences);
+        } else if (token == JsonToken.START_ARRAY && Objects.nonNull(schema.elements)) {
+            int length = path.length();
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                path.append('[').append(index).append(']');
+                walk(parser, index < schema.elements.size() ? schema.elements.get(index) : null, path, differences);
+                path.setLength(length);
+                index++;
+            }
+            for (; index < schema.elements.size(); index++) {
+                if (schema.elements.get(index).hasLeaves()) {
+                    differences.add(Kind.MISSING, path + "[" + index + "]", null);
+                }
+            }
+        } else if (schema.hasLeaves()) {
+            differences.add(Kind.MISMATCH, path.toString(), (Objects.nonNull(schema.fields) ? "object" : "array") + " expected but was " + token);
+            parser.skipChildren();
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Checks the sampled elements of an array against a wildcard rule. FIRST, EVERY and ALL decide as the elements
+     * stream by; LAST and RANDOM only know their sample at the end of the array, so they keep at most k element trees
+     * (the last ones, or a seeded reservoir sample) and check them in array order.
+     */
+    private static void walkEach(JsonParser parser, Node schema, StringBuilder path, Differences differences) throws IOException {
+        Sampling sampling = schema.sampling;
+        int length = path.length();
+        int index = 0;
+        if (!sampling.buffered()) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (sampling.selects(index)) {
+                    walk(parser, schema.each, path.append('[').append(index).append(']'), differences);
+                    path.setLength(length);
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+            return;
+        }
+        JsonNode[] kept = new JsonNode[sampling.size()];
+        int[] keptIndexes = new int[sampling.size()];
+        Random random = new Random(sampling.seed());
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int slot = sampling.slot(index, random);
+            if (slot >= 0) {
+                JsonNode element = parser.readValueAsTree();
+                kept[slot] = Objects.isNull(element) ? NullNode.getInstance() : element;
+                keptIndexes[slot] = index;
+            } else {
+                parser.skipChildren();
+            }
+            index++;
+        }
+        int[] slots = IntStream.range(0, Math.min(index, kept.length)).boxed()
+                .sorted(Comparator.comparingInt(slot -> keptIndexes[slot]))
+                .mapToInt(Integer::intValue).toArray();
+        for (int slot : slots) {
+            try (JsonParser element = kept[slot].traverse(parser.getCodec())) {
+                element.nextToken();
+                walk(element, schema.each, path.append('[').append(keptIndexes[slot]).append(']'), differences);
+                path.setLength(length);
+            }
+        }
+    }
+
+    /**
+     * Skips a value the schema does not know. Empty objects and arrays have no leaves, so they are no difference.
+     */
+    private static void skipUnexpected(JsonParser parser, JsonToken token, StringBuilder path, Differences differences) throws IOException {
+        if (!token.isStructStart()) {
+            differences.add(Kind.EXTRA, path.toString(), null);
+            return;
+        }
+        JsonToken next = parser.nextToken();
+        if (next.isStructEnd()) {
+            return;
+        }
+        differences.add(Kind.EXTRA, path.toString(), null);
+        int depth = 1;
+        while (depth > 0) {
+            if (next.isStructStart()) {
+                depth++;
+            } else if (next.isStructEnd()) {
+                depth--;
+            }
+            if (depth > 0) {
+                next = parser.nextToken();
+            }
+        }
+    }
+
+    private static Object scalar(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                case INT -> parser.getIntValue();
+                case LONG -> parser.getLongValue();
+                default -> parser.getBigIntegerValue();
+            };
+            case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> "null";
+        };
+    }
+
+    private static Node compile(JsonNode node, int ordinal) {
+        if (node.isObject()) {
+            if (node.size() == 1 && wildcardStart(node.fieldNames().next()) == 0) {
+                String key = node.fieldNames().next();
+                return new Node(ordinal, compile(node.get(key), 0), Sampling.of(key.substring(2, key.length() - 1)));
+            }
+            Map<String, Node> fields = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JsonNode> field = iterator.next();
+                String name = field.getKey();
+                int wildcard = wildcardStart(name);
+                Node child;
+                if (wildcard > 0) {
+                    child = new Node(fields.size(), compile(field.getValue(), 0), Sampling.of(name.substring(wildcard + 2, name.length() - 1)));
+                    name = name.substring(0, wildcard);
+                } else {
+                    child = compile(field.getValue(), fields.size());
+                }
+                child.name = name;
+                fields.put(name, child);
+            }
+            return new Node(ordinal, fields, null, null);
+        }
+        if (node.isArray()) {
+            List<Node> elements = new ArrayList<>();
+            for (JsonNode element : node) {
+                elements.add(compile(element, elements.size()));
+            }
+            return new Node(ordinal, null, elements, null);
+        }
+        return new Node(ordinal, null, null, expectedValue(node));
+    }
+
+    /**
+     * @return where the {@code [*]} or {@code [*|POLICY]} suffix of a schema field starts, or -1 when there is none.
+     */
+    private static int wildcardStart(String name) {
+        int start = name.lastIndexOf("[*");
+        return start >= 0 && name.endsWith("]") && (name.length() == start + 3 || name.charAt(start + 2) == '|') ? start : -1;
+    }
+
+    /**
+     * Converts a schema leaf the way {@link in.precisiontestautomation.utils.JsonPathExtractor} does.
+     */
+    private static Object expectedValue(JsonNode node) {
+        if (node.isTextual()) {
+            return node.asText();
+        } else if (node.isInt()) {
+            return node.asInt();
+        } else if (node.isLong()) {
+            return node.asLong();
+        } else if (node.isDouble()) {
+            return node.asDouble();
+        } else if (node.isBoolean()) {
+            return node.asBoolean();
+        }
+        return node.toString();
+    }
+
+    private static final class Node {
+        private final int ordinal;
+        private final Map<String, Node> fields;
+        private final List<Node> elements;
+        private final Object rule;
+        private final SchemaTypeRule typeRule;
+        private final ValueExpression expression;
+        private final Node each;
+        private final Sampling sampling;
+        private final boolean leaves;
+        private String name;
+
+        private Node(int ordinal, Map<String, Node> fields, List<Node> elements, Object rule) {
+            this.ordinal = ordinal;
+            this.fields = fields;
+            this.elements = elements;
+            this.rule = rule;
+            String text = rule instanceof String value ? value : "";
+            this.typeRule = text.startsWith("@") ? SchemaTypeRule.of(text.substring(1)) : null;
+            this.expression = text.toLowerCase().startsWith("apiglobalvariables") ? ValueExpression.cached(text) : null;
+            this.each = null;
+            this.sampling = null;
+            this.leaves = Objects.nonNull(rule)
+                    || (Objects.nonNull(fields) && fields.values().stream().anyMatch(Node::hasLeaves))
+                    || (Objects.nonNull(elements) && elements.stream().anyMatch(Node::hasLeaves));
+        }
+
+        /**
+         * A wildcard rule: every sampled element of the array must match {@code each}. An empty array matches.
+         */
+        private Node(int ordinal, Node each, Sampling sampling) {
+            this.ordinal = ordinal;
+            this.fields = null;
+            this.elements = null;
+            this.rule = null;
+            this.typeRule = null;
+            this.expression = null;
+            this.each = each;
+            this.sampling = sampling;
+            this.leaves = each.hasLeaves();
+        }
+
+        private boolean hasLeaves() {
+            return leaves;
+        }
+
+        private void check(String path, Object actual) {
+            if (Objects.nonNull(typeRule)) {
+                typeRule.validate(path, actual);
+                return;
+            }
+            Object expectedValue = Objects.nonNull(expression) ? expression.evaluate() : rule;
+            ApiKeyInitializers.getCustomSoftAssert().get().assertEquals(path, actual instanceof JsonNode ? actual.toString() : actual,
+                    expectedValue, false, null);
+        }
+    }
+
+    private enum SampleMode {
+        ALL, FIRST, LAST, EVERY, RANDOM
+    }
+
+    /**
+     * The elements a wildcard rule checks.
+     */
+    private record Sampling(SampleMode mode, int size, long seed) {
+
+        /**
+         * @param policy The text after {@code [*}: empty for the SCHEMA_WILDCARD_SAMPLE default, otherwise
+         *               {@code |ALL}, {@code |FIRST:k}, {@code |LAST:k}, {@code |EVERY:n} or {@code |RANDOM:k[:seed]}.
+         */
+        private static Sampling of(String policy) {
+            String text = policy.isEmpty() ? ApiConfiguration.getValue("SCHEMA_WILDCARD_SAMPLE", "ALL") : policy.substring(1).trim();
+            String[] parts = text.split(":");
+            try {
+                SampleMode mode = SampleMode.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+                if (mode == SampleMode.ALL) {
+                    return new Sampling(mode, 0, 0);
+                }
+                int size = Integer.parseInt(parts[1].trim());
+                long seed = mode == SampleMode.RANDOM && parts.length > 2 ? Long.parseLong(parts[2].trim()) : 1L;
+                if (size < 1) {
+                    throw new IllegalArgumentException("size must be at least 1");
+                }
+                return new Sampling(mode, size, seed);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new PrecisionTestException("RESPONSE:SCHEMA sampling '" + text + "' is not valid, use ALL, FIRST:k, LAST:k, EVERY:n or RANDOM:k[:seed]");
+            }
+        }
+
+        private boolean buffered() {
+            return mode == SampleMode.LAST || mode == SampleMode.RANDOM;
+        }
+
+        private boolean selects(int index) {
+            return switch (mode) {
+                case FIRST -> index < size;
+                case EVERY -> index % size == 0;
+                default -> true;
+            };
+        }
+
+        /**
+         * @return the buffer slot the element at {@code index} is kept in, or -1 when it is not kept.
+         */
+        private int slot(int index, Random random) {
+            if (mode == SampleMode.LAST || index < size) {
+                return index % size;
+            }
+            int slot = random.nextInt(index + 1);
+            return slot < size ? slot : -1;
+        }
+    }
+
+    private enum Kind {
+        MISSING("missing"), EXTRA("extra"), MISMATCH("type mismatch"), INVALID("invalid");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * The differences of one validation, counted per kind and grouped by kind and parent path. Memory is bounded by
+     * {@value #MAX_GROUPS} groups of {@value #MAX_NAMES} names whatever the number of differences.
+     */
+    private static final class Differences {
+        private final int[] counts = new int[Kind.values().length];
+        private final Map<String, Group> groups = new LinkedHashMap<>();
+        private int count;
+        private int ungrouped;
+
+        /**
+         * @param kind   The kind of difference.
+         * @param path   The path of the differing value, empty for the response itself.
+         * @param detail What differs, or null when the kind says it all.
+         */
+        private void add(Kind kind, String path, String detail) {
+            count++;
+            counts[kind.ordinal()]++;
+            int split = Math.max(path.lastIndexOf('.'), path.lastIndexOf('['));
+            String parent = generalize(split > 0 ? path.substring(0, split) : "");
+            String name = split < 0 ? (path.isEmpty() ? "$" : path) : generalize(path.substring(path.charAt(split) == '.' ? split + 1 : split));
+            Group group = groups.get(kind.label + ' ' + parent);
+            if (Objects.isNull(group)) {
+                if (groups.size() == MAX_GROUPS) {
+                    ungrouped++;
+                    return;
+                }
+                group = new Group(kind, parent);
+                groups.put(kind.label + ' ' + parent, group);
+            }
+            group.add(name, path.isEmpty() ? "$" : path, detail);
+        }
+
+        private String report() {
+            List<String> totals = new ArrayList<>();
+            for (Kind kind : Kind.values()) {
+                if (counts[kind.ordinal()] > 0) {
+                    totals.add(counts[kind.ordinal()] + " " + kind.label);
+                }
+            }
+            StringBuilder report = new StringBuilder(String.join(", ", totals));
+            groups.values().forEach(group -> group.appendTo(report.append("; ")));
+            if (ungrouped > 0) {
+                report.append("; ").append(ungrouped).append(" more difference(s) in other paths");
+            }
+            return report.toString();
+        }
+
+        /**
+         * Replaces every array index of a path with {@code [*]}, so the elements of an array share one group.
+         */
+        private static String generalize(String path) {
+            int open = path.indexOf('[');
+            if (open < 0) {
+                return path;
+            }
+            StringBuilder generalized = new StringBuilder(path.length());
+            int from = 0;
+            while (open >= 0) {
+                int close = path.indexOf(']', open);
+                if (close < 0) {
+                    break;
+                }
+                generalized.append(path, from, open).append("[*]");
+                from = close + 1;
+                open = path.indexOf('[', from);
+            }
+            return generalized.append(path, from, path.length()).toString();
+        }
+    }
+
+    private static final class Group {
+        private final Kind kind;
+        private final String parent;
+        private final Map<String, Example> names = new LinkedHashMap<>();
+        private int others;
+
+        private Group(Kind kind, String parent) {
+            this.kind = kind;
+            this.parent = parent;
+        }
+
+        private void add(String name, String path, String detail) {
+            Example example = names.get(name);
+            if (Objects.nonNull(example)) {
+                example.count++;
+            } else if (names.size() < MAX_NAMES) {
+                names.put(name, new Example(path, detail));
+            } else {
+                others++;
+            }
+        }
+
+        private void appendTo(StringBuilder report) {
+            report.append(kind.label);
+            if (!parent.isEmpty()) {
+                report.append(" under ").append(parent);
+            }
+            report.append(": ");
+            int length = report.length();
+            names.forEach((name, example) -> {
+                if (report.length() > length) {
+                    report.append(", ");
+                }
+                report.append(name);
+                if (example.count > 1) {
+                    report.append(" x").append(example.count);
+                }
+                boolean generalized = !example.path.endsWith(name) || !example.path.startsWith(parent);
+                if (generalized || Objects.nonNull(example.detail)) {
+                    report.append(" (");
+                    if (generalized) {
+                        report.append("e.g. ").append(example.path);
+                    }
+                    if (Objects.nonNull(example.detail)) {
+                        report.append(generalized ? ", " : "").append(example.detail);
+                    }
+                    report.append(')');
+                }
+            });
+            if (others > 0) {
+                report.append(", ").append(others).append(" more in other names");
+            }
+        }
+    }
+
+    private static final class Example {
+        private final String path;
+        private final String detail;
+        private int count = 1;
+
+        private Example(String path, String detail) {
+            this.path = path;
+            this.detail = detail;
+        }
+    }
+}
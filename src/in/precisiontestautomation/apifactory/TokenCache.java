@@ -0,0 +1,192 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import in.precisiontestautomation.utils.ApiConfiguration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Suite scoped cache of the Bearer tokens fetched by the {@link TokenProvider}s, one token per provider and credential
+ * set, so thousands of tests cases with the same {@code AUTH} rows share a handful of token requests.
+ *
+ * <p>A token is refreshed on the {@code api-token-refresh} thread {@code TOKEN_REFRESH_AHEAD_SECONDS} (default 60,
+ * at most half the lifetime of the token) before it expires, if it was used since it was fetched; tests cases keep
+ * using the current token meanwhile. Only when there is no valid token does a tests case wait for the fetch. At most
+ * one fetch runs per credential set: tests cases asking while it runs wait for it instead of starting their own. A
+ * failed fetch fails the tests cases waiting for it, and the next tests case tries again.</p>
+ *
+ * @author PTA-dev
+ */
+public class TokenCache {
+
+    private static volatile TokenCache instance;
+
+    private final long refreshAheadSeconds = ApiConfiguration.getLong("TOKEN_REFRESH_AHEAD_SECONDS", 60);
+    private final Map<String, TokenProvider> providers;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private TokenCache() {
+        Map<String, TokenProvider> found = new HashMap<>();
+        OAuth2TokenProvider oAuth2 = new OAuth2TokenProvider();
+        found.put(oAuth2.getName().toLowerCase(), oAuth2);
+        ServiceLoader.load(TokenProvider.class, TokenCache.class.getClassLoader())
+                .forEach(provider -> found.put(provider.getName().toLowerCase(), provider));
+        providers = Map.copyOf(found);
+        refresher = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "api-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the cache of the running suite, created on first use.
+     */
+    public static TokenCache getInstance() {
+        if (instance == null) {
+            synchronized (TokenCache.class) {
+                if (instance == null) {
+                    instance = new TokenCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true once any tests case asked for a token.
+     */
+    public static boolean isInitialized() {
+        return instance != null;
+    }
+
+    /**
+     * Returns a valid token for the credentials, fetching it only when no valid token is cached.
+     *
+     * @param providerName The {@code TOKEN_PROVIDER} value, the name of the provider.
+     * @param credentials  The other {@code AUTH:KEY} / {@code AUTH:VALUE} pairs.
+     * @return the token.
+     * @throws PrecisionTestException If the provider is unknown or the token could not be fetched.
+     */
+    public String token(String providerName, Map<String, String> credentials) {
+        TokenProvider provider = providers.get(providerName.trim().toLowerCase());
+        if (Objects.isNull(provider)) {
+            throw new PrecisionTestException("Unknown TOKEN_PROVIDER " + providerName + ", use one of " + providers.keySet());
+        }
+        String key = provider.getName() + new TreeMap<>(credentials);
+        Entry entry = entries.computeIfAbsent(key, ignored -> new Entry(provider, Map.copyOf(credentials)));
+
+        TokenProvider.Token token = entry.token;
+        Instant now = Instant.now();
+        if (Objects.nonNull(token) && now.isBefore(token.expiresAt())) {
+            hits.increment();
+            entry.used = true;
+            if (!now.isBefore(refreshAt(entry, token))) {
+                entry.refresh(false);
+            }
+            return token.value();
+        }
+        try {
+            return entry.refresh(true).join().value();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PrecisionTestException precisionTestException) {
+                throw precisionTestException;
+            }
+            throw new PrecisionTestException("TOKEN_PROVIDER " + provider.getName() + " could not fetch a token: " + e.getCause());
+        }
+    }
+
+    /**
+     * @return the credential sets, cached and fetched tokens of the suite.
+     */
+    public String summary() {
+        return entries.size() + " credential sets, " + hits.sum() + " cached, " + fetches.sum() + " fetched, "
+                + failures.sum() + " failed";
+    }
+
+    private Instant refreshAt(Entry entry, TokenProvider.Token token) {
+        long lifetime = Duration.between(entry.fetchedAt, token.expiresAt()).getSeconds();
+        return token.expiresAt().minusSeconds(Math.min(refreshAheadSeconds, lifetime / 2));
+    }
+
+    private final class Entry {
+        private final TokenProvider provider;
+        private final Map<String, String> credentials;
+        private volatile TokenProvider.Token token;
+        private volatile Instant fetchedAt;
+        private volatile boolean used;
+        private CompletableFuture<TokenProvider.Token> running;
+
+        private Entry(TokenProvider provider, Map<String, String> credentials) {
+            this.provider = provider;
+            this.credentials = credentials;
+        }
+
+        /**
+         * Starts a fetch unless one is running.
+         *
+         * @param inline True to fetch on the calling thread, which waits for the token anyway.
+         * @return the running fetch.
+         */
+        private CompletableFuture<TokenProvider.Token> refresh(boolean inline) {
+            CompletableFuture<TokenProvider.Token> fetch;
+            synchronized (this) {
+                if (Objects.nonNull(running) && !running.isDone()) {
+                    return running;
+                }
+                fetch = running = new CompletableFuture<>();
+            }
+            if (inline) {
+                fetch(fetch);
+            } else {
+                refresher.execute(() -> fetch(fetch));
+            }
+            return fetch;
+        }
+
+        private void fetch(CompletableFuture<TokenProvider.Token> fetch) {
+            try {
+                Instant requestedAt = Instant.now();
+                TokenProvider.Token fetched = provider.fetch(credentials);
+                fetchedAt = requestedAt;
+                used = false;
+                token = fetched;
+                fetches.increment();
+                schedule(fetched);
+                fetch.complete(fetched);
+            } catch (Throwable e) {
+                // Any failure, an Error included, has to complete the fetch, or every later tests case of these
+                // credentials waits for it forever
+                failures.increment();
+                fetch.completeExceptionally(e);
+            }
+        }
+
+        private void schedule(TokenProvider.Token fetched) {
+            long delay = Math.max(0, Duration.between(Instant.now(), refreshAt(this, fetched)).toMillis());
+            refresher.schedule(() -> {
+                // An idle credential set is not refreshed; its next tests case fetches on demand
+                if (token == fetched && used) {
+                    refresh(false);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
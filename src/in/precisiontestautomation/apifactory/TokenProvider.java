@@ -0,0 +1,42 @@
+package in.precisiontestautomation.apifactory;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Fetches the Bearer tokens used by {@code AUTH:KEY,TOKEN_PROVIDER,...} tests cases. A provider only fetches a new
+ * token; {@link TokenCache} keeps it per credential set, refreshes it before it expires and shares one fetch between
+ * all tests cases asking for it at the same time.
+ *
+ * <p>{@link OAuth2TokenProvider} is built in. Other providers implement this interface and are listed in
+ * {@code META-INF/services/in.precisiontestautomation.apifactory.TokenProvider}; the {@code TOKEN_PROVIDER} value of
+ * the tests case is matched against {@link #getName()}.</p>
+ *
+ * @author PTA-dev
+ */
+public interface TokenProvider {
+
+    /**
+     * @return the name used as {@code TOKEN_PROVIDER} value, by default the simple name of the class.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Fetches a new token. Called by one thread at a time per credential set.
+     *
+     * @param credentials The other {@code AUTH:KEY} / {@code AUTH:VALUE} pairs of the tests case.
+     * @return the token and the instant it expires.
+     */
+    Token fetch(Map<String, String> credentials);
+
+    /**
+     * A fetched token.
+     *
+     * @param value     The token sent as {@code Authorization: Bearer value}.
+     * @param expiresAt The instant the token expires.
+     */
+    record Token(String value, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,187 @@
+package in.precisiontestautomation.apifactory;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only store of recorded exchanges used by {@link RecordReplayHttpEngine}. It consists of two files in the
+ * recording directory:
+ *
+ * <ul>
+ *   <li>{@code traffic.dat}: the recorded responses, one length-delimited record after the other.</li>
+ *   <li>{@code traffic.idx}: fixed size entries of {@value #KEY_LENGTH} key bytes, the record offset and its length.</li>
+ * </ul>
+ *
+ * Opening the store only reads the index; a response is read from {@code traffic.dat} when it is replayed, so the heap
+ * holds one small entry per key regardless of the response sizes. A key recorded twice is served from its latest record.
+ * A torn index entry left by an interrupted run is ignored.
+ *
+ * @author PTA-dev
+ */
+public class TrafficStore implements AutoCloseable {
+
+    static final int KEY_LENGTH = 32;
+    private static final int INDEX_ENTRY_LENGTH = KEY_LENGTH + Long.BYTES + Integer.BYTES;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final Map<String, long[]> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store, creating the directory and both files when they do not exist.
+     *
+     * @param directory The recording directory.
+     */
+    public TrafficStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            data = FileChannel.open(directory.resolve("traffic.dat"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = FileChannel.open(directory.resolve("traffic.idx"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            loadIndex(directory.resolve("traffic.idx"));
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to open the traffic store in " + directory + " " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return the number of distinct keys in the store.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Appends a record and its index entry.
+     *
+     * @param key The {@value #KEY_LENGTH} byte key of the request.
+     * @param record The recorded exchange.
+     */
+    public synchronized void append(byte[] key, Record record) {
+        try {
+            byte[] bytes = record.toBytes();
+            long offset = data.size();
+            writeFully(data, ByteBuffer.wrap(bytes), offset);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_LENGTH).put(key).putLong(offset).putInt(bytes.length).flip();
+            long indexEnd = index.size();
+            writeFully(index, entry, indexEnd - indexEnd % INDEX_ENTRY_LENGTH);
+            entries.put(HexFormat.of().formatHex(key), new long[]{offset, bytes.length});
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to record the response " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @param key The {@value #KEY_LENGTH} byte key of the request.
+     * @return the latest record of the key, or null when the key was never recorded.
+     */
+    public Record read(byte[] key) {
+        long[] entry = entries.get(HexFormat.of().formatHex(key));
+        if (entry == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) entry[1]);
+            while (buffer.hasRemaining()) {
+                if (data.read(buffer, entry[0] + buffer.position()) < 0) {
+                    throw new EOFException("traffic.dat ends inside a record");
+                }
+            }
+            return Record.fromBytes(buffer.array());
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to replay the response " + e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+        index.close();
+    }
+
+    private void loadIndex(Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            byte[] key = new byte[KEY_LENGTH];
+            long complete = Files.size(indexFile) / INDEX_ENTRY_LENGTH;
+            for (long i = 0; i < complete; i++) {
+                in.readFully(key);
+                entries.put(HexFormat.of().formatHex(key), new long[]{in.readLong(), in.readInt()});
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * One recorded exchange: the request line for diagnostics and the full response.
+     */
+    public record Record(String requestLine, int statusCode, String statusLine, List<String[]> headers, byte[] body) {
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeString(out, requestLine);
+                out.writeInt(statusCode);
+                writeString(out, statusLine);
+                out.writeInt(headers.size());
+                for (String[] header : headers) {
+                    writeString(out, header[0]);
+                    writeString(out, header[1]);
+                }
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Record fromBytes(byte[] bytes) throws IOException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                String requestLine = readString(in);
+                int statusCode = in.readInt();
+                String statusLine = readString(in);
+                int headerCount = in.readInt();
+                List<String[]> headers = new ArrayList<>(headerCount);
+                for (int i = 0; i < headerCount; i++) {
+                    headers.add(new String[]{readString(in), readString(in)});
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                return new Record(requestLine, statusCode, statusLine, headers, body);
+            }
+        }
+
+        // writeUTF is limited to 64KB, which a header value may exceed
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -4,17 +4,37 @@ import in.precisiontestautomation.scriptlessautomation.core.configurations.TestN
 import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
 import in.precisiontestautomation.scriptlessautomation.core.testng.setup.BaseTest;
 import in.precisiontestautomation.scriptlessautomation.core.testng.xmlgenerator.DataProviderUtil;
+import in.precisiontestautomation.scriptlessautomation.core.utils.AutomationAsserts;
 import in.precisiontestautomation.scriptlessautomation.core.utils.CoreKeyInitializers;
 import in.precisiontestautomation.apifactory.ApiDataReader;
 import in.precisiontestautomation.apifactory.ApiRequester;
+import in.precisiontestautomation.apifactory.ApiTestPlanCache;
+import in.precisiontestautomation.apifactory.DependencyMemo;
+import in.precisiontestautomation.apifactory.HostConcurrencyLimiter;
+import in.precisiontestautomation.apifactory.HttpConnectionPool;
+import in.precisiontestautomation.apifactory.HttpEngineFactory;
+import in.precisiontestautomation.apifactory.ParsedResponse;
+import in.precisiontestautomation.apifactory.TokenCache;
+import in.precisiontestautomation.utils.ApiKeyInitializers;
+import in.precisiontestautomation.utils.DynamicStringCache;
+import in.precisiontestautomation.utils.StubServer;
+import in.precisiontestautomation.utils.VariableStore;
+import in.precisiontestautomation.utils.VirtualThreadExecutor;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Reporter;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * The {@code API} class provides functionality to execute API tests cases as part of an automated tests suite.
@@ -28,39 +48,70 @@ import java.util.Optional;
  * @version 1.2
  * @since 2024-05-02
  */
+@Listeners(VirtualCaseDispatcher.class)
 public class API extends BaseTest {
 
-    private static API instance = null;
-
     private final ThreadLocal<ApiRequester> apiRequester = new ThreadLocal<>();
     private final ThreadLocal<Boolean> validationCondition = new ThreadLocal<>();
     private final ThreadLocal<String> categoryName = new ThreadLocal<>();
+    private static final Map<String, Queue<DispatchedCase>> dispatched = new ConcurrentHashMap<>();
 
     private API() {
     }
 
+    private static final class Holder {
+        private static final API INSTANCE = new API();
+    }
+
     /**
      * Provides access to the singleton instance of the {@code API} class. This method ensures that
      * only one instance of the {@code API} class is created, shared, and reused across different parts
-     * of the application. This implementation uses lazy initialization to create the instance when it is
-     * first needed, without additional synchronization.
+     * of the application.
      *
-     * <p>This method is thread-safe as the instance is created without explicit synchronization mechanisms,
-     * relying on the class's static initializer for instance creation at first use. This approach minimizes
-     * synchronization overhead and ensures that the instance is created only when necessary.</p>
+     * <p>The instance lives in a holder class, so it is created lazily on first use and the JVM class
+     * initialization guarantees that concurrent callers, platform or virtual threads, all see the same
+     * fully constructed instance without explicit locking.</p>
      *
      * @return the single instance of the {@code API} class.
      */
     public static API getInstance() {
-        if (instance == null) {
-            instance = new API();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
     @BeforeSuite(alwaysRun = true)
     public void beforeSuiteApi(){
         TestNgConfig.PLATFORM = "Api";
+        ApiTestPlanCache.getInstance().preload();
+        if (StubServer.isEnabled()) {
+            StubServer.start();
+        }
+    }
+
+    /**
+     * Stops the stub server and writes the connection reuse of every route, the concurrency limit of every host and the
+     * reused dependency runs and fetched tokens of the suite to the TestNG report, then drops the worker and suite
+     * variables and the remembered dependency runs, and closes what the HTTP engine keeps open, e.g. the traffic store.
+     */
+    @AfterSuite(alwaysRun = true)
+    public void afterSuiteApi() {
+        StubServer.stop();
+        dispatched.clear();
+        if (HttpConnectionPool.isInitialized()) {
+            Reporter.log("<b>Connection pool</b><br>" + HttpConnectionPool.getInstance().summary().replace("\n", "<br>"));
+        }
+        if (HttpEngineFactory.getEngine() instanceof HostConcurrencyLimiter limiter) {
+            Reporter.log("<b>Host limits</b><br>" + limiter.summary().replace("\n", "<br>"));
+        }
+        HttpEngineFactory.getEngine().close();
+        Reporter.log("<b>Dynamic strings</b> : " + DynamicStringCache.getInstance().summary());
+        ApiKeyInitializers.getGlobalVariables().clear();
+        if (DependencyMemo.getInstance().isEnabled()) {
+            Reporter.log("<b>Dependency memo</b> : " + DependencyMemo.getInstance().summary());
+        }
+        DependencyMemo.getInstance().clear();
+        if (TokenCache.isInitialized()) {
+            Reporter.log("<b>Tokens</b> : " + TokenCache.getInstance().summary());
+        }
     }
 
     /**
@@ -81,6 +132,10 @@ public class API extends BaseTest {
      *   <li><b>DISABLE_TEST_IDS</b>: Lists tests IDs that should be excluded from execution.</li>
      *   <li><b>GROUPS</b>: Manages tests groups for execution, useful for categorizing tests into batches.</li>
      *   <li><b>ThreadCount</b>: Controls the number of threads to be used for parallel tests execution.</li>
+     *   <li><b>EXECUTION_MODE</b>: With {@code VIRTUAL} every tests case of the data provider is started on the
+     *   {@link VirtualThreadExecutor} before TestNG invokes it, and this method only collects and validates its
+     *   response. {@code VIRTUAL_THREAD_CONCURRENCY} then bounds the tests cases in flight; {@code ThreadCount}
+     *   only bounds how many responses are validated at once.</li>
      * </ul>
      *
      * @param filePath The path to the tests data file, which guides what specific API tests to execute.
@@ -88,26 +143,143 @@ public class API extends BaseTest {
      */
     @Test(dataProviderClass = DataProviderUtil.class, dataProvider = "dataProvide")
     public void testRunner(String filePath, Boolean validationCondition) {
-        this.validationCondition.set(validationCondition);
         final String testCaseName = new File(filePath).getName().split("_")[0];
-        categoryName.set(StringUtils.capitalize(new File(filePath).getParentFile().getName()));
+        final String category = StringUtils.capitalize(new File(filePath).getParentFile().getName());
+        try {
+            if (VirtualThreadExecutor.isEnabled() && !VirtualThreadExecutor.getInstance().isWorkerThread()) {
+                DispatchedCase dispatchedCase = Optional.ofNullable(dispatched.get(dispatchKey(filePath, validationCondition)))
+                        .map(Queue::poll)
+                        .orElseGet(() -> start(filePath, validationCondition, testCaseName,
+                                ApiKeyInitializers.getGlobalVariables().scope()));
+                collect(dispatchedCase, validationCondition, testCaseName, category);
+            } else {
+                runTestCase(filePath, validationCondition, testCaseName, category);
+            }
+        } finally {
+            Optional.ofNullable(Reporter.getCurrentTestResult()).ifPresent(result -> {
+                result.setAttribute("testRailId", testCaseName);
+                result.setAttribute("suiteName", category);
+            });
+        }
+    }
+
+    /**
+     * Starts a tests case of the data provider on the {@link VirtualThreadExecutor} before TestNG invokes it, for the
+     * {@link VirtualCaseDispatcher}. The TestNG worker that will run the tests case is not known yet, so the tests case
+     * gets a scope of no worker: its WORKER values last as long as the tests case and its dependencies are not shared
+     * through a {@code DEPENDENCY_MEMO = WORKER} memo.
+     *
+     * @param filePath The path to the tests data file.
+     * @param validationCondition The validation flag of the data provider row.
+     */
+    void dispatch(String filePath, Boolean validationCondition) {
+        dispatched.computeIfAbsent(dispatchKey(filePath, validationCondition), key -> new ConcurrentLinkedQueue<>())
+                .add(start(filePath, validationCondition, new File(filePath).getName().split("_")[0],
+                        ApiKeyInitializers.getGlobalVariables().unownedScope()));
+    }
+
+    /**
+     * Runs a DEPENDANT_TEST_CASE flow on the calling thread without validations, for the
+     * {@link in.precisiontestautomation.apifactory.DependencyScheduler}. The caller owns the ThreadLocal state.
+     *
+     * @param filePath The path to the tests data file of the dependency.
+     */
+    public void runDependency(String filePath) {
+        runTestCase(filePath, false, new File(filePath).getName().split("_")[0],
+                StringUtils.capitalize(new File(filePath).getParentFile().getName()));
+    }
+
+    private void runTestCase(String filePath, Boolean validationCondition, String testCaseName, String category) {
+        this.validationCondition.set(validationCondition);
+        categoryName.set(category);
         System.out.println("----------------------------------" + testCaseName + " Started----------------------------------");
         try {
-            apiRequester.set(ApiDataReader.getInstance().readTestData(filePath)
+            if (validationCondition) {
+                StubServer.resetTimings();
+            }
+            long started = System.nanoTime();
+            validate(ApiDataReader.getInstance().readTestData(filePath)
                     .parseTestData()
-                    .executeTest(testCaseName, CoreKeyInitializers.getCustomSoftAssert().get())
-                    .validateResponseCode(CoreKeyInitializers.getCustomSoftAssert().get(), this.validationCondition.get())
-                            .validateResponseSchema(validationCondition)
-                    .validateResponse(CoreKeyInitializers.getCustomSoftAssert().get(), this.validationCondition.get())
-                    .saveResponseObjects());
+                    .executeTest(testCaseName, CoreKeyInitializers.getCustomSoftAssert().get()),
+                    validationCondition, testCaseName, StubServer.timings(), started);
+        } catch (Exception e) {
+            throw new PrecisionTestException("Failed While running tests case " + testCaseName + " " + e.getLocalizedMessage());
+        }
+        System.out.println("----------------------------------" + testCaseName + "Ended----------------------------------");
+
+    }
+
+    /**
+     * Parses the tests case, runs its dependencies and sends its request on a thread of the
+     * {@link VirtualThreadExecutor}. The tests case holds a permit of the executor until its response arrived, but no
+     * thread while a non-blocking HTTP engine waits for it.
+     */
+    private DispatchedCase start(String filePath, Boolean validationCondition, String testCaseName, VariableStore.Scope variables) {
+        DispatchedCase dispatchedCase = new DispatchedCase(variables);
+        dispatchedCase.requester = VirtualThreadExecutor.getInstance().submit(() -> {
+            CoreKeyInitializers.getCustomSoftAssert().set(dispatchedCase.automationAsserts);
+            ApiKeyInitializers.getGlobalVariables().bind(dispatchedCase.variables);
+            StubServer.bindTimings(dispatchedCase.timings);
+            dispatchedCase.started = System.nanoTime();
+            try {
+                return ApiDataReader.getInstance().readTestData(filePath)
+                        .parseTestData()
+                        .executeTestAsync(testCaseName, dispatchedCase.automationAsserts)
+                        .thenApply(requester -> {
+                            dispatchedCase.received = System.nanoTime();
+                            return requester;
+                        });
+            } finally {
+                cleanUpThreadLocals();
+                CoreKeyInitializers.getCustomSoftAssert().remove();
+            }
+        });
+        return dispatchedCase;
+    }
+
+    /**
+     * Waits for a started tests case on the TestNG worker, writes its deferred report lines and validates its response
+     * with the soft asserts of the TestNG invocation.
+     */
+    private void collect(DispatchedCase dispatchedCase, Boolean validationCondition, String testCaseName, String category) {
+        this.validationCondition.set(validationCondition);
+        categoryName.set(category);
+        AutomationAsserts automationAsserts = CoreKeyInitializers.getCustomSoftAssert().get();
+        ApiKeyInitializers.getGlobalVariables().bind(dispatchedCase.variables);
+        System.out.println("----------------------------------" + testCaseName + " Started----------------------------------");
+        try {
+            ApiRequester requester;
+            try {
+                requester = VirtualThreadExecutor.join(dispatchedCase.requester);
+            } finally {
+                dispatchedCase.automationAsserts.replay(automationAsserts);
+            }
+            // the wall time of the tests case leaves out the time it waited to be collected
+            long started = System.nanoTime() - (dispatchedCase.received - dispatchedCase.started);
+            validate(requester.publishResponse(testCaseName, automationAsserts), validationCondition, testCaseName,
+                    dispatchedCase.timings, started);
         } catch (Exception e) {
             throw new PrecisionTestException("Failed While running tests case " + testCaseName + " " + e.getLocalizedMessage());
-        } finally {
-            Reporter.getCurrentTestResult().setAttribute("testRailId", testCaseName);
-            Reporter.getCurrentTestResult().setAttribute("suiteName", categoryName.get());
         }
         System.out.println("----------------------------------" + testCaseName + "Ended----------------------------------");
+    }
+
+    private void validate(ApiRequester requester, Boolean validationCondition, String testCaseName, StubServer.Timings timings, long started) {
+        AutomationAsserts automationAsserts = CoreKeyInitializers.getCustomSoftAssert().get();
+        apiRequester.set(requester
+                .validateResponseCode(automationAsserts, validationCondition)
+                .validateResponseSchema(validationCondition)
+                .validateResponse(automationAsserts, validationCondition)
+                .saveResponseObjects());
+        if (validationCondition && StubServer.isRunning()) {
+            automationAsserts.info("TestCase <b>" + testCaseName + "</b> -> <i>Overhead</i> : "
+                    + timings.overhead(System.nanoTime() - started));
+        }
+        apiRequester.get().generateLoad(testCaseName, automationAsserts, validationCondition);
+    }
 
+    private static String dispatchKey(String filePath, Boolean validationCondition) {
+        return filePath + "|" + validationCondition;
     }
 
     /**
@@ -118,7 +290,27 @@ public class API extends BaseTest {
     @AfterMethod(alwaysRun = true)
     public void cleanUpThreadLocals() {
         validationCondition.remove();
+        categoryName.remove();
         Optional.ofNullable(apiRequester.get()).ifPresent(ApiRequester::apiGlobalVariableClear);
         apiRequester.remove();
+        ApiKeyInitializers.getGlobalVariables().remove();
+        StubServer.resetTimings();
+        ParsedResponse.clear();
+    }
+
+    /**
+     * A tests case started by {@link #dispatch(String, Boolean)}, with the state its TestNG invocation picks up.
+     */
+    private static final class DispatchedCase {
+        private final DeferredAsserts automationAsserts = new DeferredAsserts();
+        private final StubServer.Timings timings = new StubServer.Timings();
+        private final VariableStore.Scope variables;
+        private CompletableFuture<ApiRequester> requester;
+        private long started;
+        private long received;
+
+        private DispatchedCase(VariableStore.Scope variables) {
+            this.variables = variables;
+        }
     }
 }
@@ -0,0 +1,35 @@
+package in.precisiontestautomation.tests;
+
+import in.precisiontestautomation.scriptlessautomation.core.utils.AutomationAsserts;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Report of a tests case that starts before TestNG invokes it, see {@link VirtualCaseDispatcher}, or of a
+ * DEPENDANT_TEST_CASE flow running next to other flows of the same tests case. The request, response and dependency
+ * lines are kept until the thread owning the report replays them, so the report is only written by one thread; the
+ * validations run on that thread, and dependency flows have none, so only {@link #info(String)} is deferred.
+ *
+ * @author PTA-dev
+ */
+public final class DeferredAsserts extends AutomationAsserts {
+
+    private final Queue<String> lines = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void info(String message) {
+        lines.add(message);
+    }
+
+    /**
+     * Writes the kept lines to the report of the TestNG invocation, in the order they were logged.
+     *
+     * @param automationAsserts The report of the invocation.
+     */
+    public void replay(AutomationAsserts automationAsserts) {
+        for (String line = lines.poll(); line != null; line = lines.poll()) {
+            automationAsserts.info(line);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package in.precisiontestautomation.tests;
+
+import in.precisiontestautomation.utils.VirtualThreadExecutor;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Starts every tests case of the {@code testRunner} data provider on the {@link VirtualThreadExecutor} as soon as the
+ * rows are known when {@code EXECUTION_MODE=VIRTUAL}, so the number of tests cases in flight is bounded by
+ * {@code VIRTUAL_THREAD_CONCURRENCY} instead of the TestNG {@code ThreadCount}. Each TestNG invocation then only
+ * collects the result of its tests case, see {@link API#testRunner(String, Boolean)}. Every row is started once; the
+ * started tests cases are kept in a static queue, as TestNG invokes {@code testRunner} on an instance of its own.
+ *
+ * @author PTA-dev
+ */
+public class VirtualCaseDispatcher implements IDataProviderInterceptor {
+
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> original, IDataProviderMethod dataProviderMethod,
+                                        ITestNGMethod method, ITestContext iTestContext) {
+        if (!VirtualThreadExecutor.isEnabled() || !method.getMethodName().equals("testRunner")) {
+            return original;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        original.forEachRemaining(rows::add);
+        rows.forEach(row -> API.getInstance().dispatch(String.valueOf(row[0]), (Boolean) row[1]));
+        return rows.iterator();
+    }
+}
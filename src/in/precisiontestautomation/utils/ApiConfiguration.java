@@ -0,0 +1,86 @@
+package in.precisiontestautomation.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Reads the API specific switches from {@code config/testNgConfiguration.properties}.
+ * The file is loaded once per JVM; a JVM system property with the same key always wins over the file value,
+ * so a switch can be flipped from the command line without editing the configuration.
+ *
+ * @author PTA-dev
+ */
+public class ApiConfiguration {
+
+    private static final Path CONFIG_FILE = Paths.get(System.getProperty("user.dir"), "config", "testNgConfiguration.properties");
+
+    private static final Properties PROPERTIES = load();
+
+    private ApiConfiguration() {
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(CONFIG_FILE)) {
+            try (FileInputStream fis = new FileInputStream(CONFIG_FILE.toFile())) {
+                properties.load(fis);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read " + CONFIG_FILE, e);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * <p>getValue.</p>
+     *
+     * @param key a {@link java.lang.String} object
+     * @param defaultValue value returned when the key is absent or blank
+     * @return a {@link java.lang.String} object
+     */
+    public static String getValue(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (Objects.isNull(value)) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return Objects.isNull(value) || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * <p>getInt.</p>
+     *
+     * @param key a {@link java.lang.String} object
+     * @param defaultValue value returned when the key is absent or blank
+     * @return an int
+     */
+    public static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(getValue(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * <p>getLong.</p>
+     *
+     * @param key a {@link java.lang.String} object
+     * @param defaultValue value returned when the key is absent or blank
+     * @return a long
+     */
+    public static long getLong(String key, long defaultValue) {
+        return Long.parseLong(getValue(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * <p>getBoolean.</p>
+     *
+     * @param key a {@link java.lang.String} object
+     * @param defaultValue value returned when the key is absent or blank
+     * @return a boolean
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getValue(key, String.valueOf(defaultValue)));
+    }
+}
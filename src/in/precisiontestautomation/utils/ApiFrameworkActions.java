@@ -3,22 +3,13 @@ package in.precisiontestautomation.utils;
 import in.precisiontestautomation.scriptlessautomation.core.configurations.TestNgConfig;
 import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
 
-import javax.tools.JavaCompiler;
-import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
-import javax.tools.ToolProvider;
-import java.io.*;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * <p>FrameworkActions class.</p>
@@ -53,17 +44,8 @@ public class ApiFrameworkActions {
      * @return a {@link java.lang.String} object
      */
     public static String fetchPreFlow(String sendKeys) {
-        if (sendKeys.toLowerCase().contains("mock")) {
-            String[] invokeMethodArr = sendKeys.split(":");
-            String className = invokeMethodArr[0];
-            String methodName = invokeMethodArr[1];
-            String param = invokeMethodArr.length == 3 ? invokeMethodArr[2] : null;
-            return Objects.isNull(param) ? invokeClassMethods(className, methodName) : invokeClassMethods(className, methodName, param);
-        } else if (sendKeys.toLowerCase().contains("globalvariables")) {
-            String variableName = sendKeys.split(":")[1];
-            return ApiKeyInitializers.getGlobalVariables().get().get(variableName).toString();
-        }
-        return getDynamicString(sendKeys);
+        String expression = sendKeys.regionMatches(true, 0, "PreFlow:", 0, 8) ? sendKeys : "PreFlow:" + sendKeys;
+        return ValueExpression.cached(expression).evaluateToString();
     }
 
     /**
@@ -76,15 +58,7 @@ public class ApiFrameworkActions {
      */
     @SuppressWarnings("unchecked")
     public static <T> T invokeClassMethods(String className, String methodName) {
-        try {
-            Class<?> cls = Class.forName(ApiFrameworkActions.class.getPackageName() + "." + className);
-            Method method = cls.getMethod(methodName);
-            Object obj = cls.getDeclaredConstructor().newInstance();
-            return (T) method.invoke(obj);
-        } catch (ClassNotFoundException | NoSuchMethodException | InvocationTargetException | IllegalAccessException |
-                 InstantiationException e) {
-            throw new RuntimeException(e);
-        }
+        return (T) ClassMethodInvoker.of(className, methodName, 0).invoke();
     }
 
 
@@ -99,16 +73,7 @@ public class ApiFrameworkActions {
      */
     @SuppressWarnings("unchecked")
     public static <T> T invokeClassMethods(String className, String methodName, String param) {
-
-        try {
-            Class<?> cls = Class.forName(ApiFrameworkActions.class.getPackageName() + "." + className);
-            Method method = cls.getMethod(methodName, String.class);
-            Object obj = cls.getDeclaredConstructor().newInstance();
-            return (T) method.invoke(obj, param);
-        } catch (ClassNotFoundException | NoSuchMethodException | InvocationTargetException | InstantiationException |
-                 IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        return (T) ClassMethodInvoker.of(className, methodName, 1).invoke(param);
     }
 
     /**
@@ -135,6 +100,7 @@ public class ApiFrameworkActions {
 
     /**
      * <p>searchFiles.</p>
+     * Looks the name prefix up in the {@link FileIndex} of the directory instead of walking it.
      *
      * @param fileName a {@link java.lang.String} object
      * @param searchDirectory a {@link java.lang.String} object
@@ -142,17 +108,12 @@ public class ApiFrameworkActions {
      */
     public static String searchFiles(String fileName, String searchDirectory) {
         Path directory = Path.of(searchDirectory);
-
-        try (Stream<Path> pathStream = Files.walk(directory)) {
-            return pathStream
-                    .filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().startsWith(fileName))
-                    .findFirst()
-                    .map(Path::toString)
-                    .orElse(null);
-        } catch (IOException e) {
+        if (!Files.isDirectory(directory)) {
             throw new PrecisionTestException(fileName + " not found in the " + TestNgConfig.PLATFORM + " directory");
         }
+        return FileIndex.of(directory).find(fileName)
+                .map(Path::toString)
+                .orElse(null);
     }
 
     /**
@@ -165,70 +126,7 @@ public class ApiFrameworkActions {
      */
     @SuppressWarnings("unchecked")
     public static <T> T invokeCustomClassMethods(String className, String methodName) {
-        try {
-            String javaFilePath = searchFiles(className, System.getProperty("user.dir") + File.separator + "src");
-            File javaFile = new File(javaFilePath);
-
-            // Directory for compiled .class files
-            String outputDir = System.getProperty("user.dir") + File.separator + "target";
-            File outputDirFile = new File(outputDir);
-            if (!outputDirFile.exists()) {
-                outputDirFile.mkdirs();
-            }
-
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
-                Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(Collections.singletonList(javaFile));
-                // Correctly specify the compiler options
-                compiler.getTask(null, fileManager, null, Arrays.asList("-d", outputDir), null, compilationUnits).call();
-            }
-
-            // Create URL to the output directory
-            URL[] classUrls = {outputDirFile.toURI().toURL()};
-
-            // Use URLClassLoader to load the class
-            try (URLClassLoader classLoader = new URLClassLoader(classUrls)) {
-                String packageName = getPackageName(javaFilePath);
-                Class<?> cls = classLoader.loadClass(packageName + className);
-                Method method = getMethod(className, methodName, cls);
-                Object obj = cls.getDeclaredConstructor().newInstance();
-                Object[] params = new Object[method.getParameterCount()];
-
-                return (T) method.invoke(obj, params);
-
-            }
-        } catch (IOException | ClassNotFoundException | NoSuchMethodException | InvocationTargetException |
-                 InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private static Method getMethod(String className, String methodName, Class<?> cls) throws NoSuchMethodException {
-        Method method = null;
-
-        // Iterate over methods to find the matching one with the right name
-        for (Method m : cls.getDeclaredMethods()) {
-            if (m.getName().equals(methodName)) {
-                method = m;
-                break;
-            }
-        }
-
-        if (method == null) {
-            throw new NoSuchMethodException("Method " + methodName + " not found in class " + className);
-        }
-        return method;
-    }
-
-    private static String getPackageName(String javaFilePath) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(javaFilePath))) {
-            String firstLine = br.readLine();
-            if (firstLine != null && firstLine.startsWith("package")) {
-                return firstLine.split("package")[1].trim().replace(";", "") + ".";
-            } else {
-                return ""; // Default package
-            }
-        }
+        return (T) CustomClassRegistry.getInstance().invoke(className, methodName);
     }
 
     /**
@@ -260,18 +158,7 @@ public class ApiFrameworkActions {
     }
 
     static String integrateString(String expected) {
-        String globalVariableValue = null;
-
-        String regex = "\\{\\{GlobalVariable:([^}]+)\\}\\}";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(expected);
-
-        if (matcher.find()) {
-            String variableName = matcher.group(1);
-            globalVariableValue = ApiKeyInitializers.getGlobalVariables().get().get(variableName).toString();
-        }
-
-        return matcher.replaceAll(globalVariableValue);
+        return ValueExpression.compileTemplate(expected).evaluateToString();
     }
 
     /**
@@ -281,63 +168,16 @@ public class ApiFrameworkActions {
      * @return a {@link java.lang.String} object
      */
     public static String getDynamicString(String sendKeys){
-        Pattern pattern = Pattern.compile("\\$(\\w+)\\.(\\w+)");
-        Matcher matcher = pattern.matcher(sendKeys);
-        if (matcher.find()) {
-            String propertyFileName = matcher.group(1);
-            String key = matcher.group(2);
-            return getPropertyValue(propertyFileName, key);
-        }
-        return sendKeys;
+        return ValueExpression.compileDynamicString(sendKeys).evaluateToString();
     }
 
-    private static String getPropertyValue(String propertyFileName, String key) {
-        String basePath = "test_data/api/dynamic_strings/";
-        String propertyFilePath = Paths.get(basePath, TestNgConfig.ENV, propertyFileName + ".properties").toString();
-
-        Properties prop = new Properties();
-        try (FileInputStream fis = new FileInputStream(propertyFilePath)) {
-            prop.load(fis);
-            return prop.getProperty(key);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null; // Or handle this case as per your requirement
-        }
+    static String getPropertyValue(String propertyFileName, String key) {
+        return DynamicStringCache.getInstance().get(propertyFileName, key);
     }
 
 
     // Method to replace all occurrences of ApiGlobalVariables:XX in the URL with actual values
     public static String constructString(String urlTemplate) {
-        // Fetch the global variables map
-        Map<String, Object> globalVariables = ApiKeyInitializers.getGlobalVariables().get();
-
-        // Define the pattern to match ApiGlobalVariables:XX
-        Pattern pattern = Pattern.compile("ApiGlobalVariables:([a-zA-Z0-9]+)");
-        Matcher matcher = pattern.matcher(urlTemplate);
-
-        // Use StringBuffer to hold the modified URL
-        StringBuffer result = new StringBuffer();
-
-        // Iterate through all matches
-        while (matcher.find()) {
-            // Extract the variable name
-            String variableName = matcher.group(1);
-
-            // Get the corresponding value from global variables
-            String value = globalVariables.get(variableName).toString();
-
-            // If the value is found, replace the pattern with the value
-            if (value != null) {
-                matcher.appendReplacement(result, value);
-            } else {
-                // If value is not found, keep the original pattern
-                matcher.appendReplacement(result, matcher.group(0));
-            }
-        }
-
-        // Append the remaining part of the URL
-        matcher.appendTail(result);
-
-        return result.toString();
+        return ValueExpression.compileTemplate(urlTemplate).evaluateToString();
     }
 }
@@ -5,9 +5,6 @@ import io.restassured.response.Response;
 import lombok.Getter;
 import in.precisiontestautomation.apifactory.MailingServices;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * <p>KeyInitializers class.</p>
  *
@@ -24,7 +21,7 @@ public class ApiKeyInitializers extends CoreKeyInitializers {
     private static final ThreadLocal<MailingServices> mailingServices = new ThreadLocal<>();
 
     @Getter
-    private static final ThreadLocal<Map<String, Object>> globalVariables = ThreadLocal.withInitial(HashMap::new);
+    private static final VariableStore globalVariables = new VariableStore();
 
     @Getter
     private static ThreadLocal<Response> response = new ThreadLocal<>();
@@ -0,0 +1,132 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the methods called by PreFlow cells such as {@code PreFlow:MOCK:FIRST_NAME}. Each class and method is
+ * looked up once and kept as a {@link MethodHandle}, so later calls skip {@code Class.forName}, the method lookup and
+ * the instantiation of the class.
+ *
+ * <p>Static methods are called directly. Instance methods of a class without instance fields, like {@link MOCK}, are
+ * bound to one shared instance; a class with instance fields still gets a new instance per call, as before.</p>
+ *
+ * @author PTA-dev
+ */
+public final class ClassMethodInvoker {
+
+    private static final Map<String, ClassMethodInvoker> INVOKERS = new ConcurrentHashMap<>();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private final String name;
+    private final MethodHandle handle;
+
+    private ClassMethodInvoker(String name, MethodHandle handle) {
+        this.name = name;
+        this.handle = handle;
+    }
+
+    /**
+     * @param className A class of the {@code in.precisiontestautomation.utils} package, e.g. {@code MOCK}.
+     * @param methodName A public method taking {@code parameterCount} String parameters.
+     * @param parameterCount The number of String parameters, 0 or 1 for PreFlow cells.
+     * @return the invoker, resolved on first use.
+     * @throws PrecisionTestException If the class or method does not exist or the class cannot be instantiated.
+     */
+    public static ClassMethodInvoker of(String className, String methodName, int parameterCount) {
+        return INVOKERS.computeIfAbsent(className + "#" + methodName + "/" + parameterCount,
+                name -> resolve(name, className, methodName, parameterCount));
+    }
+
+    /**
+     * Creates an invoker for a method of a class that is not looked up by name, e.g. a compiled Custom class.
+     *
+     * @param method The public method.
+     * @param receiver The instance to call an instance method on, or null to follow the rules of this class.
+     * @return the invoker.
+     */
+    static ClassMethodInvoker of(Method method, Object receiver) {
+        String name = method.getDeclaringClass().getSimpleName() + "#" + method.getName() + "/" + method.getParameterCount();
+        try {
+            return new ClassMethodInvoker(name, adapt(method, receiver));
+        } catch (Throwable e) {
+            throw new PrecisionTestException("Unable to create " + method.getDeclaringClass().getName() + " " + e);
+        }
+    }
+
+    /**
+     * Calls the method.
+     *
+     * @param params The arguments.
+     * @return the value returned by the method, null for a void method.
+     */
+    public Object invoke(Object... params) {
+        try {
+            return switch (params.length) {
+                case 0 -> (Object) handle.invokeExact();
+                case 1 -> (Object) handle.invokeExact(params[0]);
+                default -> handle.invokeWithArguments(params);
+            };
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new PrecisionTestException(name + " failed " + e);
+        }
+    }
+
+    /**
+     * @return the number of arguments {@link #invoke(Object...)} expects.
+     */
+    int parameterCount() {
+        return handle.type().parameterCount();
+    }
+
+    private static ClassMethodInvoker resolve(String name, String className, String methodName, int parameterCount) {
+        try {
+            Class<?> cls = Class.forName(ClassMethodInvoker.class.getPackageName() + "." + className);
+            Class<?>[] parameterTypes = new Class<?>[parameterCount];
+            Arrays.fill(parameterTypes, String.class);
+            return new ClassMethodInvoker(name, adapt(cls.getMethod(methodName, parameterTypes), null));
+        } catch (ReflectiveOperationException e) {
+            throw new PrecisionTestException("Unable to resolve " + className + ":" + methodName + " " + e);
+        } catch (Throwable e) {
+            throw new PrecisionTestException("Unable to create " + className + " " + e);
+        }
+    }
+
+    private static MethodHandle adapt(Method method, Object receiver) throws Throwable {
+        MethodHandle handle = LOOKUP.unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            Class<?> cls = method.getDeclaringClass();
+            if (receiver != null) {
+                handle = handle.bindTo(receiver);
+            } else {
+                MethodHandle constructor = LOOKUP.findConstructor(cls, MethodType.methodType(void.class));
+                handle = isStateless(cls)
+                        ? handle.bindTo(constructor.invoke())
+                        : MethodHandles.foldArguments(handle, constructor);
+            }
+        }
+        return handle.asType(MethodType.genericMethodType(method.getParameterCount()));
+    }
+
+    private static boolean isStateless(Class<?> cls) {
+        for (Class<?> type = cls; type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
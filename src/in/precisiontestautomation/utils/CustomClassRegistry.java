@@ -0,0 +1,268 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import org.testng.Reporter;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the {@code Custom:Class:method} values and validation points to compiled classes once per suite.
+ *
+ * <p>A class name is looked up first among the {@link CustomHook}s registered with the ServiceLoader. Otherwise its
+ * source is found below {@code src} and compiled in memory with the system {@link JavaCompiler}: no class files are
+ * written and no class loader is opened per call. {@link #compileAll(Collection)} compiles the classes used by all
+ * tests case flows in one compiler run when the suite starts; a class first seen later is compiled on its own.
+ * Compiled classes are cached by the SHA-256 of their source, so an unchanged source is never compiled twice, and
+ * every resolved method is kept as a {@link ClassMethodInvoker}.</p>
+ *
+ * @author PTA-dev
+ */
+public class CustomClassRegistry {
+
+    private final Path sourceRoot = Paths.get(System.getProperty("user.dir"), "src");
+    private final Map<String, Class<?>> classesBySourceHash = new ConcurrentHashMap<>();
+    private final Map<String, ClassMethodInvoker> invokers = new ConcurrentHashMap<>();
+    private volatile Map<String, CustomHook> hooks;
+
+    private CustomClassRegistry() {
+    }
+
+    private static final class Holder {
+        private static final CustomClassRegistry INSTANCE = new CustomClassRegistry();
+    }
+
+    /**
+     * @return the registry shared by the suite.
+     */
+    public static CustomClassRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Calls a Custom method, resolving and compiling its class on first use. Parameters of the method receive null,
+     * as they always did.
+     *
+     * @param className The simple name of the hook or source file.
+     * @param methodName The public method to call.
+     * @return the value returned by the method.
+     */
+    public Object invoke(String className, String methodName) {
+        ClassMethodInvoker invoker = invokers.computeIfAbsent(className + "#" + methodName, key -> resolve(className, methodName));
+        return invoker.invoke(new Object[invoker.parameterCount()]);
+    }
+
+    /**
+     * Compiles the sources of the given classes in one compiler run. Classes provided by a {@link CustomHook}, already
+     * compiled or without a source file are skipped.
+     *
+     * @param classNames Simple class names used in Custom cells.
+     */
+    public void compileAll(Collection<String> classNames) {
+        Map<String, Source> sources = new LinkedHashMap<>();
+        for (String className : classNames) {
+            if (!hooks().containsKey(className)) {
+                findSource(className)
+                        .filter(source -> !classesBySourceHash.containsKey(source.hash()))
+                        .ifPresent(source -> sources.put(className, source));
+            }
+        }
+        if (!sources.isEmpty()) {
+            long started = System.nanoTime();
+            compile(sources);
+            Reporter.log(String.format("<b>Custom classes</b> : %d compiled in %.1fms", sources.size(), (System.nanoTime() - started) / 1e6));
+        }
+    }
+
+    private ClassMethodInvoker resolve(String className, String methodName) {
+        CustomHook hook = hooks().get(className);
+        if (Objects.nonNull(hook)) {
+            return ClassMethodInvoker.of(findMethod(hook.getClass(), className, methodName), hook);
+        }
+        Source source = findSource(className)
+                .orElseThrow(() -> new PrecisionTestException("Custom class " + className + " not found below " + sourceRoot));
+        Class<?> cls = classesBySourceHash.get(source.hash());
+        if (Objects.isNull(cls)) {
+            compile(Map.of(className, source));
+            cls = classesBySourceHash.get(source.hash());
+        }
+        return ClassMethodInvoker.of(findMethod(cls, className, methodName), null);
+    }
+
+    private static Method findMethod(Class<?> cls, String className, String methodName) {
+        return Arrays.stream(cls.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new PrecisionTestException("Method " + methodName + " not found in class " + className));
+    }
+
+    private Map<String, CustomHook> hooks() {
+        Map<String, CustomHook> loaded = hooks;
+        if (Objects.isNull(loaded)) {
+            synchronized (this) {
+                if (Objects.isNull(hooks)) {
+                    Map<String, CustomHook> found = new HashMap<>();
+                    ServiceLoader.load(CustomHook.class, CustomClassRegistry.class.getClassLoader())
+                            .forEach(hook -> found.put(hook.getName(), hook));
+                    hooks = Map.copyOf(found);
+                }
+                loaded = hooks;
+            }
+        }
+        return loaded;
+    }
+
+    private Optional<Source> findSource(String className) {
+        if (!Files.isDirectory(sourceRoot)) {
+            return Optional.empty();
+        }
+        return FileIndex.of(sourceRoot).find(className + ".java")
+                .filter(path -> path.getFileName().toString().equals(className + ".java"))
+                .map(path -> {
+                    try {
+                        String content = Files.readString(path);
+                        return new Source(className, path, content, hash(content));
+                    } catch (IOException e) {
+                        throw new PrecisionTestException("Unable to read " + path + " " + e.getLocalizedMessage());
+                    }
+                });
+    }
+
+    private synchronized void compile(Map<String, Source> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (Objects.isNull(compiler)) {
+            throw new PrecisionTestException("Custom classes need a JDK, no Java compiler is available in " + System.getProperty("java.home"));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))) {
+            List<JavaFileObject> units = sources.values().stream()
+                    .map(source -> new SourceFile(source.path().toUri(), source.content()))
+                    .collect(Collectors.toList());
+            List<String> options = new ArrayList<>(List.of(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-sourcepath", sourceRoot.toString()));
+            boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+            if (!compiled) {
+                throw new PrecisionTestException("Unable to compile the Custom classes " + sources.keySet() + ":\n"
+                        + diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(Object::toString)
+                        .collect(Collectors.joining("\n")));
+            }
+            Map<String, byte[]> classes = fileManager.classes();
+            CompiledClassLoader loader = new CompiledClassLoader(classes, CustomClassRegistry.class.getClassLoader());
+            for (Source source : sources.values()) {
+                String binaryName = classes.keySet().stream()
+                        .filter(name -> name.equals(source.className()) || name.endsWith("." + source.className()))
+                        .findFirst()
+                        .orElseThrow(() -> new PrecisionTestException("Custom class " + source.className()
+                                + " is not declared in " + source.path()));
+                classesBySourceHash.put(source.hash(), loader.loadClass(binaryName));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new PrecisionTestException("Unable to load the Custom classes " + sources.keySet() + " " + e.getLocalizedMessage());
+        }
+    }
+
+    private static String hash(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new PrecisionTestException("SHA-256 is not available " + e.getLocalizedMessage());
+        }
+    }
+
+    private record Source(String className, Path path, String content, String hash) {
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String content;
+
+        private SourceFile(URI uri, String content) {
+            super(uri, Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> output = new HashMap<>();
+
+        private MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+            if (location != StandardLocation.CLASS_OUTPUT || kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return output.computeIfAbsent(className, name -> new ByteArrayOutputStream());
+                }
+            };
+        }
+
+        private Map<String, byte[]> classes() {
+            Map<String, byte[]> classes = new HashMap<>();
+            output.forEach((name, bytes) -> classes.put(name, bytes.toByteArray()));
+            return classes;
+        }
+    }
+
+    private static final class CompiledClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        private CompiledClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (Objects.isNull(bytes)) {
+                return super.findClass(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
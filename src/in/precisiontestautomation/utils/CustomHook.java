@@ -0,0 +1,21 @@
+package in.precisiontestautomation.utils;
+
+/**
+ * A precompiled {@code Custom:Class:method} hook. Implementations listed in
+ * {@code META-INF/services/in.precisiontestautomation.utils.CustomHook} are loaded with {@link java.util.ServiceLoader}
+ * and used instead of compiling a source file of the same name, e.g. a hook from a shared jar or one compiled by the
+ * project build.
+ *
+ * <p>The public methods of the hook are called on the instance created by the ServiceLoader.</p>
+ *
+ * @author PTA-dev
+ */
+public interface CustomHook {
+
+    /**
+     * @return the class name used in the tests case cells, the simple class name by default.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
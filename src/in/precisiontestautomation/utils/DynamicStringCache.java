@@ -0,0 +1,107 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.configurations.TestNgConfig;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the {@code test_data/api/dynamic_strings/<ENV>/<file>.properties} files behind the {@code $file.key}
+ * placeholders. A file is loaded on its first lookup in an environment and kept as an immutable map, so concurrent
+ * lookups are a hash lookup without locking.
+ *
+ * <p>The modification time of a cached file is checked at most once per {@code DYNAMIC_STRINGS_CHECK_INTERVAL_MS}
+ * (default 1000, 0 checks on every lookup); the file is read again only when it changed.</p>
+ *
+ * @author PTA-dev
+ */
+public class DynamicStringCache {
+
+    private static final Path BASE_PATH = Paths.get("test_data", "api", "dynamic_strings");
+
+    private final Map<String, Entry> files = new ConcurrentHashMap<>();
+    private final long checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(ApiConfiguration.getLong("DYNAMIC_STRINGS_CHECK_INTERVAL_MS", 1000));
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private DynamicStringCache() {
+    }
+
+    private static final class Holder {
+        private static final DynamicStringCache INSTANCE = new DynamicStringCache();
+    }
+
+    /**
+     * @return the cache shared by the suite.
+     */
+    public static DynamicStringCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns a dynamic string of the current {@code ENV}.
+     *
+     * @param propertyFileName The file name without {@code .properties}.
+     * @param key The property key.
+     * @return the value, or null when the file has no such key.
+     * @throws PrecisionTestException If the file does not exist or cannot be read.
+     */
+    public String get(String propertyFileName, String key) {
+        String environment = TestNgConfig.ENV;
+        String id = environment + "/" + propertyFileName;
+        Entry entry = files.get(id);
+        if (Objects.isNull(entry) || System.nanoTime() - entry.checkedAt() >= checkIntervalNanos) {
+            entry = files.compute(id, (ignored, cached) -> refresh(environment, propertyFileName, cached));
+        } else {
+            hits.increment();
+        }
+        return entry.values().get(key);
+    }
+
+    /**
+     * @return the number of cached files, lookups served from the cache and file loads.
+     */
+    public String summary() {
+        return String.format("files=%d hits=%d misses=%d", files.size(), hits.sum(), misses.sum());
+    }
+
+    private Entry refresh(String environment, String propertyFileName, Entry cached) {
+        Path file = BASE_PATH.resolve(environment).resolve(propertyFileName + ".properties");
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (Objects.nonNull(cached) && cached.modified().equals(modified)) {
+                hits.increment();
+                return new Entry(cached.values(), modified, System.nanoTime());
+            }
+            misses.increment();
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+                properties.load(reader);
+            }
+            Map<String, String> values = new HashMap<>();
+            properties.stringPropertyNames().forEach(name -> values.put(name, properties.getProperty(name)));
+            return new Entry(Map.copyOf(values), modified, System.nanoTime());
+        } catch (NoSuchFileException e) {
+            throw new PrecisionTestException("Dynamic string file " + file + " not found,either create one or verify file name");
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to read dynamic string file " + file + " " + e.getLocalizedMessage());
+        }
+    }
+
+    private record Entry(Map<String, String> values, FileTime modified, long checkedAt) {
+    }
+}
@@ -0,0 +1,197 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sorted index of the file names below a directory, replacing a recursive {@code Files.walk} per lookup in
+ * {@link ApiFrameworkActions#searchFiles(String, String)}, DEPENDANT_TEST_CASE resolution and the JsonRepository lookups.
+ *
+ * <p>The index is built on first use of a directory and kept current by a {@link WatchService} on every directory
+ * below it: a file created, deleted or renamed rebuilds the index in the background. A prefix lookup is a binary
+ * search over the names. When several files start with the prefix, the smallest name wins, then the shortest path,
+ * which makes the result independent of the directory listing order. A lookup that finds nothing only rebuilds the index
+ * when the directory could not be watched or a change is waiting to be indexed, and then on one thread at a time and at
+ * most once a second, so mistyped names do not bring back a walk per lookup.</p>
+ *
+ * @author PTA-dev
+ */
+public class FileIndex {
+
+    private static final Map<Path, FileIndex> INDEXES = new ConcurrentHashMap<>();
+    private static final long MIN_RESCAN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::name)
+            .thenComparingInt(entry -> entry.path().toString().length())
+            .thenComparing(entry -> entry.path().toString());
+
+    private final Path root;
+    private final Object rescanLock = new Object();
+    private volatile Entry[] entries;
+    private volatile long scannedAt;
+    private volatile boolean watched;
+    private volatile boolean stale;
+    private WatchService watchService;
+
+    private FileIndex(Path root) {
+        this.root = root;
+        this.entries = scan();
+        this.scannedAt = System.nanoTime();
+        watch();
+    }
+
+    /**
+     * @param directory The directory to index.
+     * @return the index of the directory, built on first use.
+     */
+    public static FileIndex of(Path directory) {
+        return INDEXES.computeIfAbsent(directory.toAbsolutePath().normalize(), FileIndex::new);
+    }
+
+    /**
+     * @param prefix The start of the file name.
+     * @return the first file whose name starts with the prefix.
+     */
+    public Optional<Path> find(String prefix) {
+        return find(prefix, root);
+    }
+
+    /**
+     * @param prefix The start of the file name.
+     * @param under Only files below this directory are considered.
+     * @return the first file below {@code under} whose name starts with the prefix.
+     */
+    public Optional<Path> find(String prefix, Path under) {
+        Path directory = under.toAbsolutePath().normalize();
+        Entry[] snapshot = entries;
+        Optional<Path> found = lookup(snapshot, prefix, directory);
+        if (found.isEmpty() && (!watched || stale)) {
+            found = lookup(rescan(snapshot), prefix, directory);
+        }
+        return found;
+    }
+
+    /**
+     * @return the number of indexed files.
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    private static Optional<Path> lookup(Entry[] snapshot, String prefix, Path under) {
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (snapshot[middle].name().compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < snapshot.length && snapshot[i].name().startsWith(prefix); i++) {
+            if (snapshot[i].path().startsWith(under)) {
+                return Optional.of(snapshot[i].path());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Rebuilds the index unless another thread did since {@code seen} was read or the last rebuild is too recent.
+     */
+    private Entry[] rescan(Entry[] seen) {
+        synchronized (rescanLock) {
+            if (entries == seen && System.nanoTime() - scannedAt >= MIN_RESCAN_NANOS) {
+                entries = scan();
+                scannedAt = System.nanoTime();
+            }
+            return entries;
+        }
+    }
+
+    private Entry[] scan() {
+        if (!Files.isDirectory(root)) {
+            return new Entry[0];
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            Entry[] scanned = paths.filter(Files::isRegularFile)
+                    .map(path -> new Entry(path.getFileName().toString(), path))
+                    .toArray(Entry[]::new);
+            Arrays.sort(scanned, ORDER);
+            return scanned;
+        } catch (IOException e) {
+            throw new PrecisionTestException("Unable to index " + root + " " + e.getLocalizedMessage());
+        }
+    }
+
+    private void watch() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerAll();
+        } catch (IOException e) {
+            System.out.println("File changes below " + root + " are not watched, lookups fall back to a rescan: " + e.getLocalizedMessage());
+            return;
+        }
+        watched = true;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    stale = true;
+                    key.pollEvents();
+                    key.reset();
+                    // drain the burst of events of a checkout or a copy before rebuilding once
+                    WatchKey next;
+                    while ((next = watchService.poll(200, TimeUnit.MILLISECONDS)) != null) {
+                        next.pollEvents();
+                        next.reset();
+                    }
+                    registerAll();
+                    synchronized (rescanLock) {
+                        stale = false;
+                        entries = scan();
+                        scannedAt = System.nanoTime();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException | IOException | PrecisionTestException e) {
+                System.out.println("Stopped watching " + root + ": " + e.getLocalizedMessage());
+            } finally {
+                watched = false;
+            }
+        }, "api-file-index-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void registerAll() throws IOException {
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private record Entry(String name, Path path) {
+    }
+}
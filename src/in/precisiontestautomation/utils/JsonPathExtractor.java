@@ -51,6 +51,16 @@ public class JsonPathExtractor {
             throw new RuntimeException(e);
         }
 
+        return getMapJsonPathValue(root, rootNode);
+    }
+
+    /**
+     * Extracts all paths and their corresponding values from an already parsed JSON tree.
+     * @param root the root path from which to start the search in the JSON structure.
+     * @param rootNode the parsed JSON.
+     * @return a HashMap where each key is a JSON path and each value is the content found at that path in the JSON structure.
+     */
+    public HashMap<String,Object> getMapJsonPathValue(String root,JsonNode rootNode){
         HashMap<String,Object> paths = new HashMap<>();
         generateJsonPaths(new StringBuilder(root), rootNode, paths);
         return paths;
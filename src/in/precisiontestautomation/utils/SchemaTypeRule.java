@@ -0,0 +1,208 @@
+package in.precisiontestautomation.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@code @Type} rule of a schema file ({@code INTEGER}, {@code DATE->yyyy-MM-dd}, ...) compiled once: the type is
+ * resolved and a DATE format is turned into a thread-safe {@link DateTimeFormatter}, so checking a value does not split
+ * the rule or build a formatter again. Compiled rules are cached for the whole suite.
+ *
+ * <p>DATE formats are the {@link java.text.SimpleDateFormat} patterns used so far and are read the same way: a numeric
+ * field takes any number of digits unless it directly follows another numeric field, e.g. {@code yyyy-MM-dd} accepts
+ * 2024-1-5 and {@code yyyyMMdd} needs 20240105, and a {@code y} or {@code yy} year of exactly two digits lies within
+ * 80 years before and 20 years after today. {@code y} is the proleptic year and impossible dates such as 2024-02-30 are
+ * rejected. As before, the value must start with a date in the format. A format using week fields ({@code u},
+ * {@code Y}, {@code w}, {@code W}, {@code F}) is still checked with SimpleDateFormat.</p>
+ *
+ * @author PTA-dev
+ */
+public final class SchemaTypeRule {
+
+    private static final Map<String, SchemaTypeRule> CACHE = new ConcurrentHashMap<>();
+
+    private final SchemaValueTypes type;
+    private final String typeName;
+    private final String format;
+    private final DateTimeFormatter formatter;
+
+    private SchemaTypeRule(SchemaValueTypes type, String typeName, String format) {
+        this.type = type;
+        this.typeName = typeName;
+        this.format = format;
+        this.formatter = type == SchemaValueTypes.DATE ? dateTimeFormatter(format) : null;
+    }
+
+    /**
+     * @param schema The rule without the leading {@code @}, e.g. {@code INTEGER} or {@code DATE->yyyy-MM-dd}.
+     * @return the compiled rule.
+     */
+    public static SchemaTypeRule of(String schema) {
+        return CACHE.computeIfAbsent(schema, SchemaTypeRule::compile);
+    }
+
+    private static SchemaTypeRule compile(String schema) {
+        int arrow = schema.indexOf("->");
+        String typeName = (arrow < 0 ? schema : schema.substring(0, arrow)).toUpperCase(Locale.ROOT);
+        String format = arrow < 0 ? "" : schema.substring(arrow + 2);
+        try {
+            return new SchemaTypeRule(SchemaValueTypes.valueOf(typeName.trim()), typeName, format);
+        } catch (IllegalArgumentException e) {
+            throw new PrecisionTestException("Schema type @" + schema + " is not supported, use one of " + Arrays.toString(SchemaValueTypes.values()));
+        }
+    }
+
+    /**
+     * Checks a value and reports the result to the soft assertions of the tests case.
+     *
+     * @param jsonPath The path of the value, used as the name of the assertion.
+     * @param actual   The value: a String, number, Boolean, or a Jackson node for an array or object.
+     */
+    public void validate(String jsonPath, Object actual) {
+        SchemaTypeValidations.validateSchemaType(jsonPath, matches(actual), typeName, String.valueOf(actual));
+    }
+
+    /**
+     * @param actual The value: a String, number, Boolean, or a Jackson node for an array or object.
+     * @return true when the value has the type of the rule.
+     */
+    public boolean matches(Object actual) {
+        if (actual instanceof JsonNode node && node.isContainerNode()) {
+            return switch (type) {
+                case ARRAY -> node.isArray();
+                case JSON_OBJECT -> node.isObject();
+                case STRING -> true;
+                default -> false;
+            };
+        }
+        String value = String.valueOf(actual);
+        return switch (type) {
+            case INTEGER -> SchemaTypeValidations.isValidInteger(value);
+            case STRING -> SchemaTypeValidations.isValidString(value);
+            case FLOAT -> SchemaTypeValidations.isValidFloat(value);
+            case BOOLEAN -> SchemaTypeValidations.isValidBoolean(value);
+            case DATE -> isValidDate(value);
+            case ARRAY -> SchemaTypeValidations.isValidArray(value);
+            case JSON_OBJECT -> SchemaTypeValidations.isValidJSONObject(value);
+            case UUID -> SchemaTypeValidations.isValidUUID(value);
+        };
+    }
+
+    private boolean isValidDate(String value) {
+        if (Objects.isNull(formatter)) {
+            return SchemaTypeValidations.isValidDate(value, format);
+        }
+        ParsePosition position = new ParsePosition(0);
+        if (Objects.isNull(formatter.parseUnresolved(value, position))) {
+            return false;
+        }
+        // The value has the shape of the format here; only resolving it can still fail, e.g. on the 30th of February
+        try {
+            formatter.parse(value.subSequence(0, position.getIndex()));
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the strict formatter of a SimpleDateFormat pattern, or null when the pattern has to stay with
+     * SimpleDateFormat.
+     */
+    private static DateTimeFormatter dateTimeFormatter(String pattern) {
+        if (pattern.isEmpty()) {
+            return null;
+        }
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        boolean abutting = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                // quoted text is a literal, in which '' is a quote; '' outside quotes is a quote too
+                StringBuilder text = new StringBuilder();
+                int j = i + 1;
+                if (j < pattern.length() && pattern.charAt(j) == '\'') {
+                    text.append('\'');
+                } else {
+                    while (j < pattern.length() && (pattern.charAt(j) != '\'' || (j + 1 < pattern.length() && pattern.charAt(j + 1) == '\''))) {
+                        text.append(pattern.charAt(j));
+                        j += pattern.charAt(j) == '\'' ? 2 : 1;
+                    }
+                    if (j >= pattern.length()) {
+                        return null;
+                    }
+                }
+                builder.appendLiteral(text.toString());
+                i = j + 1;
+                abutting = false;
+                continue;
+            }
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            if (!Character.isLetter(c)) {
+                builder.appendLiteral(pattern.substring(i, i + count));
+                abutting = false;
+            } else {
+                ChronoField field = numericField(c, count);
+                if (Objects.nonNull(field)) {
+                    if (abutting) {
+                        builder.appendValue(field, count);
+                    } else if (field == ChronoField.YEAR && count <= 2) {
+                        builder.appendValueReduced(field, 2, 10, LocalDate.now().minusYears(80));
+                    } else {
+                        builder.appendValue(field, 1, 10, SignStyle.NOT_NEGATIVE);
+                    }
+                    abutting = true;
+                } else if ("GEaMLzZX".indexOf(c) >= 0) {
+                    try {
+                        builder.appendPattern(pattern.substring(i, i + count));
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                    abutting = false;
+                } else {
+                    return null;
+                }
+            }
+            i += count;
+        }
+        return builder.toFormatter(Locale.getDefault()).withResolverStyle(ResolverStyle.STRICT);
+    }
+
+    /**
+     * @return the field of a numeric SimpleDateFormat letter, or null for a text field or a letter without one.
+     */
+    private static ChronoField numericField(char letter, int count) {
+        return switch (letter) {
+            case 'y' -> ChronoField.YEAR;
+            case 'M', 'L' -> count <= 2 ? ChronoField.MONTH_OF_YEAR : null;
+            case 'd' -> ChronoField.DAY_OF_MONTH;
+            case 'D' -> ChronoField.DAY_OF_YEAR;
+            case 'H' -> ChronoField.HOUR_OF_DAY;
+            case 'k' -> ChronoField.CLOCK_HOUR_OF_DAY;
+            case 'K' -> ChronoField.HOUR_OF_AMPM;
+            case 'h' -> ChronoField.CLOCK_HOUR_OF_AMPM;
+            case 'm' -> ChronoField.MINUTE_OF_HOUR;
+            case 's' -> ChronoField.SECOND_OF_MINUTE;
+            case 'S' -> ChronoField.MILLI_OF_SECOND;
+            default -> null;
+        };
+    }
+}
@@ -2,7 +2,6 @@ package in.precisiontestautomation.utils;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.UUID;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -16,45 +15,15 @@ import org.json.JSONObject;
 public class SchemaTypeValidations {
 
 
+    /**
+     * Checks a value against a {@code @Type} rule of a schema file, compiling the rule on first use.
+     *
+     * @param jsonPath The path of the value, used as the name of the assertion.
+     * @param schema The rule without the leading {@code @}, e.g. {@code INTEGER} or {@code DATE->yyyy-MM-dd}.
+     * @param actualSchemaValue The value.
+     */
     public static void schemaTypeValidation(String jsonPath,String schema, Object actualSchemaValue){
-        String schemaType = schema.toUpperCase().split("->")[0];
-        String schemaFormat = schema.contains("->") ? schema.split("->")[1] : "";
-        SchemaValueTypes schemaValueTypes = SchemaValueTypes.valueOf(schemaType.toUpperCase());
-        switch (schemaValueTypes){
-            case UUID -> {
-                String actual = (String) actualSchemaValue;
-                validateSchemaType(jsonPath,isValidUUID(actual),schemaType,actual);
-            }
-            case DATE -> {
-                String actual = String.valueOf(actualSchemaValue);
-                validateSchemaType(jsonPath,isValidDate(actual,schemaFormat),schemaType,actual);
-            }
-            case ARRAY -> {
-                String actual = String.valueOf(actualSchemaValue);
-                validateSchemaType(jsonPath,isValidArray(actual),schemaType,actual);
-            }
-
-            case FLOAT -> {
-                String actual = String.valueOf(actualSchemaValue);
-                validateSchemaType(jsonPath,isValidFloat(actual),schemaType,actual);
-            }
-            case STRING -> {
-                String actual = String.valueOf(actualSchemaValue);
-                validateSchemaType(jsonPath,isValidString(actual),schemaType,actual);
-            }
-            case BOOLEAN -> {
-                String actual = String.valueOf(actualSchemaValue);
-                validateSchemaType(jsonPath,isValidBoolean(actual),schemaType,actual);
-            }
-            case INTEGER -> {
-                String actual = String.valueOf(actualSchemaValue) ;
-                validateSchemaType(jsonPath,isValidInteger(actual),schemaType,actual);
-            }
-            case JSON_OBJECT -> {
-                String actual = (String) actualSchemaValue;
-                validateSchemaType(jsonPath,isValidJSONObject(actual),schemaType,actual);
-            }
-        }
+        SchemaTypeRule.of(schema).validate(jsonPath, actualSchemaValue);
     }
 
 
@@ -68,20 +37,30 @@ public class SchemaTypeValidations {
      * @param uuidString The string to be tested for validity as a UUID.
      * @return true if the provided string is a valid UUID, false otherwise.
      */
-    private static boolean isValidUUID(String uuidString) {
-        if (uuidString == null) {
+    static boolean isValidUUID(String uuidString) {
+        if (uuidString == null || uuidString.isEmpty() || uuidString.length() > 36) {
             return false;
         }
-        try {
-            // This line will throw IllegalArgumentException if the uuidString is not a valid UUID
-            UUID.fromString(uuidString);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+        // Same forms as UUID.fromString: five non-empty hex groups separated by four dashes
+        int dashes = 0;
+        boolean emptyGroup = true;
+        for (int i = 0; i < uuidString.length(); i++) {
+            char c = uuidString.charAt(i);
+            if (c == '-') {
+                if (emptyGroup || ++dashes > 4) {
+                    return false;
+                }
+                emptyGroup = true;
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            } else {
+                emptyGroup = false;
+            }
         }
+        return dashes == 4 && !emptyGroup;
     }
 
-    private static boolean isValidDate(String dateStr,String format) {
+    static boolean isValidDate(String dateStr,String format) {
         SimpleDateFormat sdf = new SimpleDateFormat(format);
         sdf.setLenient(false);
         try {
@@ -92,33 +71,115 @@ public class SchemaTypeValidations {
         }
     }
 
-    private static boolean isValidInteger(String value) {
-        try {
-            Integer.parseInt(value);
-            return true;
-        } catch (NumberFormatException e) {
+    static boolean isValidInteger(String value) {
+        if (value == null || value.isEmpty()) {
             return false;
         }
+        int i = 0;
+        boolean negative = value.charAt(0) == '-';
+        if (negative || value.charAt(0) == '+') {
+            if (value.length() == 1) {
+                return false;
+            }
+            i = 1;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            result = result * 10 + (c - '0');
+            if (result > limit) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static boolean isValidString(String value) {
+    static boolean isValidString(String value) {
         return value != null;
     }
 
-    private static boolean isValidFloat(String value) {
-        try {
-            Float.parseFloat(value);
+    /**
+     * Accepts what Float.parseFloat accepts: surrounding blanks, a sign, NaN, Infinity, digits with an optional
+     * fraction and exponent, and an f/F/d/D suffix. Hexadecimal floats are rare enough to be left to Float.parseFloat.
+     */
+    static boolean isValidFloat(String value) {
+        if (value == null) {
+            return false;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = start;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        if (value.startsWith("NaN", i) && i + 3 == end || value.startsWith("Infinity", i) && i + 8 == end) {
             return true;
-        } catch (NumberFormatException e) {
+        }
+        if (i + 1 < end && value.charAt(i) == '0' && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')) {
+            try {
+                Float.parseFloat(value);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        int digits = 0;
+        while (i < end && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && value.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
             return false;
         }
+        if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isDigit(value.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        if (i < end && "fFdD".indexOf(value.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == end;
     }
 
-    private static boolean isValidBoolean(String value) {
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isValidBoolean(String value) {
         return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
     }
 
-    private static boolean isValidArray(String value) {
+    static boolean isValidArray(String value) {
+        if (!isWrapped(value, '[', ']')) {
+            return false;
+        }
         try {
             new JSONArray(value);
             return true;
@@ -127,7 +188,10 @@ public class SchemaTypeValidations {
         }
     }
 
-    private static boolean isValidJSONObject(String value) {
+    static boolean isValidJSONObject(String value) {
+        if (!isWrapped(value, '{', '}')) {
+            return false;
+        }
         try {
             new JSONObject(value);
             return true;
@@ -136,7 +200,15 @@ public class SchemaTypeValidations {
         }
     }
 
-    private static void validateSchemaType(String jsonPath, boolean schemaCheck,String schemaType,String actual){
+    private static boolean isWrapped(String value, char open, char close) {
+        if (value == null) {
+            return false;
+        }
+        String trimmed = value.strip();
+        return trimmed.length() > 1 && trimmed.charAt(0) == open && trimmed.charAt(trimmed.length() - 1) == close;
+    }
+
+    static void validateSchemaType(String jsonPath, boolean schemaCheck,String schemaType,String actual){
         ApiKeyInitializers.getCustomSoftAssert().get().assertTrue(jsonPath,schemaCheck,"Schema Type("+actual+") is as expected "+schemaType, "Schema Type("+actual+") is not as expected "+schemaType,false,null);
     }
 
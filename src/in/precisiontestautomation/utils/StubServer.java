@@ -0,0 +1,249 @@
+package in.precisiontestautomation.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process HTTP stub serving canned responses from {@code test_data/api/JsonRepository}, used to measure the time
+ * the framework itself spends per tests case without network or backend variance. Enable it with
+ * {@code STUB_SERVER = true} and point the END_POINT values at {@code http://localhost:STUB_SERVER_PORT}.
+ *
+ * <p>A request is answered with the first JsonRepository file named {@code METHOD_path.json}, then {@code path.json},
+ * where the slashes of the path are replaced by underscores, e.g. {@code GET /users/1} looks for
+ * {@code GET_users_1.json} and then {@code users_1.json}. Without a matching file the stub answers with a generated
+ * JSON payload of {@code STUB_SERVER_PAYLOAD_BYTES} bytes, or a 404 when that is 0.</p>
+ *
+ * <p>{@code STUB_SERVER_DELAY_MS} delays every response; the {@code delayMs} and {@code payloadBytes} query parameters
+ * override the delay and the generated payload size of a single request. Every response carries the time spent in the
+ * stub in the {@value #SERVICE_TIME_HEADER} header, which the framework subtracts to report its own overhead.</p>
+ *
+ * @author PTA-dev
+ */
+public class StubServer {
+
+    public static final String SERVICE_TIME_HEADER = "X-Stub-Service-Micros";
+
+    private static final ThreadLocal<Timings> TIMINGS = ThreadLocal.withInitial(Timings::new);
+    private static volatile StubServer instance;
+
+    private final Path repository = Paths.get(System.getProperty("user.dir"), "test_data", "api", "JsonRepository");
+    private final long defaultDelayMillis = ApiConfiguration.getLong("STUB_SERVER_DELAY_MS", 0);
+    private final int defaultPayloadBytes = ApiConfiguration.getInt("STUB_SERVER_PAYLOAD_BYTES", 0);
+    private final Map<String, Optional<byte[]>> cannedResponses = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "api-stub-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return true when {@code STUB_SERVER} is true in {@code testNgConfiguration.properties}.
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(ApiConfiguration.getValue("STUB_SERVER", "false"));
+    }
+
+    /**
+     * @return true while the stub is serving.
+     */
+    public static boolean isRunning() {
+        return instance != null;
+    }
+
+    /**
+     * Starts the stub on {@code STUB_SERVER_PORT} (default 8089) unless it is already running.
+     */
+    public static synchronized void start() {
+        if (instance == null) {
+            int port = ApiConfiguration.getInt("STUB_SERVER_PORT", 8089);
+            try {
+                instance = new StubServer(port);
+            } catch (IOException e) {
+                throw new PrecisionTestException("Unable to start the stub server on port " + port + " " + e.getLocalizedMessage());
+            }
+            System.out.println("Stub server listening on http://localhost:" + instance.server.getAddress().getPort());
+        }
+    }
+
+    /**
+     * Stops the stub.
+     */
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.server.stop(0);
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * @return the timings of the tests case running on the calling thread, to be handed to the code that completes
+     * its exchanges on other threads.
+     */
+    public static Timings timings() {
+        return TIMINGS.get();
+    }
+
+    /**
+     * Adds one exchange to the timings of the calling thread.
+     *
+     * @param transportNanos Time spent in the HTTP engine for the exchange.
+     * @param response The response, carrying the stub service time.
+     */
+    public static void recordExchange(long transportNanos, Response response) {
+        TIMINGS.get().record(transportNanos, response);
+    }
+
+    /**
+     * Clears the timings of the calling thread before a tests case starts.
+     */
+    public static void resetTimings() {
+        TIMINGS.remove();
+    }
+
+    /**
+     * Makes the timings of a tests case the timings of the calling thread, e.g. a thread running the tests case or one
+     * of its DEPENDANT_TEST_CASE flows.
+     *
+     * @param timings The timings of the tests case.
+     */
+    public static void bindTimings(Timings timings) {
+        TIMINGS.set(timings);
+    }
+
+    /**
+     * Transport and stub service time of the exchanges of one tests case. Exchanges may complete on HTTP client
+     * threads, so the sums are atomic. Exchanges of DEPENDANT_TEST_CASE runs are included; as independent flows run
+     * in parallel, their times add up and the framework share can drop below zero for a tests case with such flows.
+     */
+    public static final class Timings {
+        private final LongAdder transportNanos = new LongAdder();
+        private final LongAdder serviceNanos = new LongAdder();
+
+        /**
+         * Adds one exchange.
+         *
+         * @param transportNanos Time spent in the HTTP engine for the exchange.
+         * @param response The response, carrying the stub service time.
+         */
+        public void record(long transportNanos, Response response) {
+            this.transportNanos.add(transportNanos);
+            Optional.ofNullable(response.getHeader(SERVICE_TIME_HEADER))
+                    .ifPresent(micros -> serviceNanos.add(TimeUnit.MICROSECONDS.toNanos(Long.parseLong(micros))));
+        }
+
+        /**
+         * Splits the wall time of a tests case into the stub, the HTTP client and the framework itself.
+         *
+         * @param wallNanos Wall time of the tests case.
+         * @return a one line breakdown in milliseconds.
+         */
+        public String overhead(long wallNanos) {
+            long transport = transportNanos.sum();
+            long service = serviceNanos.sum();
+            return String.format("wall=%.2fms stub=%.2fms httpClient=%.2fms framework=%.2fms",
+                    wallNanos / 1e6, service / 1e6, (transport - service) / 1e6, (wallNanos - transport) / 1e6);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long started = System.nanoTime();
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+            long delayMillis = Long.parseLong(query.getOrDefault("delayMs", String.valueOf(defaultDelayMillis)));
+            int payloadBytes = Integer.parseInt(query.getOrDefault("payloadBytes", String.valueOf(defaultPayloadBytes)));
+
+            String path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").replace('/', '_');
+            byte[] body = canned(exchange.getRequestMethod() + "_" + path)
+                    .or(() -> canned(path))
+                    .orElseGet(() -> payloadBytes > 0 ? generatedPayload(payloadBytes) : null);
+            int status = 200;
+            if (body == null) {
+                status = 404;
+                body = ("{\"error\":\"No JsonRepository file for " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI().getPath() + "\"}").getBytes(StandardCharsets.UTF_8);
+            }
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add(SERVICE_TIME_HEADER,
+                    String.valueOf(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started)));
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Optional<byte[]> canned(String name) {
+        return cannedResponses.computeIfAbsent(name, key -> {
+            if (!Files.isDirectory(repository)) {
+                return Optional.empty();
+            }
+            Optional<Path> file = FileIndex.of(repository.getParent().getParent()).find(key + ".json", repository)
+                    .filter(path -> path.getFileName().toString().equals(key + ".json"));
+            try {
+                return file.isPresent() ? Optional.of(Files.readAllBytes(file.get())) : Optional.empty();
+            } catch (IOException e) {
+                throw new PrecisionTestException("Unable to read " + key + ".json from JsonRepository " + e.getLocalizedMessage());
+            }
+        });
+    }
+
+    private static byte[] generatedPayload(int size) {
+        String prefix = "{\"data\":\"";
+        String suffix = "\"}";
+        int fill = Math.max(0, size - prefix.length() - suffix.length());
+        byte[] payload = new byte[prefix.length() + fill + suffix.length()];
+        System.arraycopy(prefix.getBytes(StandardCharsets.US_ASCII), 0, payload, 0, prefix.length());
+        Arrays.fill(payload, prefix.length(), prefix.length() + fill, (byte) 'x');
+        System.arraycopy(suffix.getBytes(StandardCharsets.US_ASCII), 0, payload, prefix.length() + fill, suffix.length());
+        return payload;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (Objects.nonNull(rawQuery)) {
+            for (String pair : rawQuery.split("&")) {
+                String[] keyValue = pair.split("=", 2);
+                if (keyValue.length == 2) {
+                    parameters.put(keyValue[0], keyValue[1]);
+                }
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,310 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A tests case cell compiled once into an expression tree of literals and placeholders, so resolving it for an
+ * execution only walks the tree: no splitting, lower casing or regex matching on the request path.
+ *
+ * <p>A value cell is one of</p>
+ * <ul>
+ *   <li>{@code ApiGlobalVariables:name} - the global variable itself, keeping its type; text after a further
+ *   {@code :} is appended to it as a string;</li>
+ *   <li>{@code PreFlow:MOCK:method[:param]} - the trimmed result of the {@link MOCK} method;</li>
+ *   <li>{@code PreFlow:GlobalVariables:name} - the trimmed global variable as a string;</li>
+ *   <li>{@code PreFlow:text} - the trimmed text with every {@code $file.key} replaced by the key of
+ *   {@code test_data/api/dynamic_strings/<ENV>/file.properties};</li>
+ *   <li>any other text, in which every {@code ApiGlobalVariables:name} (letters and digits) and
+ *   {@code {{GlobalVariable:name}}} is replaced by the global variable.</li>
+ * </ul>
+ * Any number of placeholders may appear in one cell. A global variable placeholder inside text fails with a
+ * {@link PrecisionTestException} naming the variable when the variable is not set.
+ *
+ * <p>Expressions are immutable and serializable, so they are compiled with the {@link in.precisiontestautomation.apifactory.ApiTestPlan}
+ * and cached with it.</p>
+ *
+ * @author PTA-dev
+ */
+public final class ValueExpression implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final String API_GLOBAL_VARIABLES = "ApiGlobalVariables:";
+    private static final String GLOBAL_VARIABLE_OPEN = "{{GlobalVariable:";
+    private static final String GLOBAL_VARIABLE_CLOSE = "}}";
+    private static final String PRE_FLOW = "PreFlow:";
+    private static final int CACHE_LIMIT = 4096;
+    private static final Map<String, ValueExpression> CACHE = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final Node root;
+
+    private ValueExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Compiles a value cell (PARAMS, AUTH, HEADERS, BODY, EXPECTED_VALUE and STORE_VALUE rows).
+     *
+     * @param cell The raw cell.
+     * @return the compiled expression; a null cell evaluates to null.
+     */
+    public static ValueExpression compile(String cell) {
+        if (Objects.isNull(cell)) {
+            return new ValueExpression(null, new Literal(null));
+        }
+        if (startsWithIgnoreCase(cell, API_GLOBAL_VARIABLES)) {
+            String rest = cell.substring(API_GLOBAL_VARIABLES.length());
+            int separator = rest.indexOf(':');
+            if (separator < 0) {
+                return new ValueExpression(cell, new Variable(rest.trim(), false));
+            }
+            return new ValueExpression(cell, concat(List.of(new Variable(rest.substring(0, separator).trim(), true),
+                    template(rest.substring(separator), false))));
+        }
+        if (startsWithIgnoreCase(cell, PRE_FLOW)) {
+            return new ValueExpression(cell, new Trimmed(preFlow(cell.substring(PRE_FLOW.length()))));
+        }
+        return new ValueExpression(cell, template(cell, false));
+    }
+
+    /**
+     * Compiles a text cell such as the END_POINT, where only the placeholders inside the text are replaced.
+     *
+     * @param text The raw text.
+     * @return the compiled expression.
+     */
+    public static ValueExpression compileTemplate(String text) {
+        return new ValueExpression(text, template(Objects.requireNonNull(text), false));
+    }
+
+    /**
+     * @param text Text with {@code $file.key} placeholders.
+     * @return the compiled expression, as used after {@code PreFlow:}.
+     */
+    static ValueExpression compileDynamicString(String text) {
+        return new ValueExpression(text, template(Objects.requireNonNull(text), true));
+    }
+
+    /**
+     * Compiles a value cell, reusing the expression of an identical cell compiled before. Used where cells are not
+     * part of a cached plan.
+     *
+     * @param cell The raw cell.
+     * @return the compiled expression.
+     */
+    public static ValueExpression cached(String cell) {
+        if (Objects.isNull(cell)) {
+            return compile(null);
+        }
+        ValueExpression expression = CACHE.get(cell);
+        if (Objects.isNull(expression)) {
+            expression = compile(cell);
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(cell, expression);
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * @param cells The raw cells, may be null.
+     * @return the compiled expressions in cell order, or null for null cells.
+     */
+    public static List<ValueExpression> compileAll(List<String> cells) {
+        return Objects.isNull(cells) ? null : cells.stream().map(ValueExpression::compile).toList();
+    }
+
+    /**
+     * Resolves the expression against the global variables of the calling thread.
+     *
+     * @return the value: the global variable itself for a whole cell {@code ApiGlobalVariables:name}, the raw cell
+     * when it has no placeholder, otherwise the resolved text.
+     */
+    public Object evaluate() {
+        return root.evaluate(ApiKeyInitializers.getGlobalVariables().get());
+    }
+
+    /**
+     * @return the resolved value as text, null stays null.
+     */
+    public String evaluateToString() {
+        Object value = evaluate();
+        return Objects.isNull(value) ? null : value.toString();
+    }
+
+    /**
+     * @return true when the cell has no placeholder.
+     */
+    public boolean isLiteral() {
+        return root instanceof Literal;
+    }
+
+    /**
+     * @return the raw cell.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static Node preFlow(String expression) {
+        int separator = expression.indexOf(':');
+        String head = (separator < 0 ? expression : expression.substring(0, separator)).trim();
+        if (separator >= 0 && head.equalsIgnoreCase("GlobalVariables")) {
+            String rest = expression.substring(separator + 1);
+            int end = rest.indexOf(':');
+            return new Variable((end < 0 ? rest : rest.substring(0, end)).trim(), true);
+        }
+        if (separator >= 0 && head.toLowerCase().contains("mock")) {
+            String rest = expression.substring(separator + 1);
+            int end = rest.indexOf(':');
+            return end < 0
+                    ? new MockCall(head, rest.trim(), null)
+                    : new MockCall(head, rest.substring(0, end).trim(), rest.substring(end + 1));
+        }
+        return template(expression, true);
+    }
+
+    private static Node template(String text, boolean dynamicStrings) {
+        List<Node> parts = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = -1;
+            Node placeholder = null;
+            if (c == 'A' && text.startsWith(API_GLOBAL_VARIABLES, i)) {
+                end = i + API_GLOBAL_VARIABLES.length();
+                while (end < text.length() && isLetterOrDigit(text.charAt(end))) {
+                    end++;
+                }
+                if (end > i + API_GLOBAL_VARIABLES.length()) {
+                    placeholder = new Variable(text.substring(i + API_GLOBAL_VARIABLES.length(), end), true);
+                }
+            } else if (c == '{' && text.startsWith(GLOBAL_VARIABLE_OPEN, i)) {
+                int close = text.indexOf(GLOBAL_VARIABLE_CLOSE, i + GLOBAL_VARIABLE_OPEN.length());
+                if (close > i + GLOBAL_VARIABLE_OPEN.length()) {
+                    placeholder = new Variable(text.substring(i + GLOBAL_VARIABLE_OPEN.length(), close), true);
+                    end = close + GLOBAL_VARIABLE_CLOSE.length();
+                }
+            } else if (c == '$' && dynamicStrings) {
+                int dot = i + 1;
+                while (dot < text.length() && isWordChar(text.charAt(dot))) {
+                    dot++;
+                }
+                end = dot + 1;
+                while (end < text.length() && isWordChar(text.charAt(end))) {
+                    end++;
+                }
+                if (dot > i + 1 && dot < text.length() && text.charAt(dot) == '.' && end > dot + 1) {
+                    placeholder = new DynamicString(text.substring(i + 1, dot), text.substring(dot + 1, end));
+                }
+            }
+            if (Objects.isNull(placeholder)) {
+                i++;
+                continue;
+            }
+            if (i > literalStart) {
+                parts.add(new Literal(text.substring(literalStart, i)));
+            }
+            parts.add(placeholder);
+            literalStart = i = end;
+        }
+        if (parts.isEmpty()) {
+            return new Literal(text);
+        }
+        if (literalStart < text.length()) {
+            parts.add(new Literal(text.substring(literalStart)));
+        }
+        return concat(parts);
+    }
+
+    private static Node concat(List<Node> parts) {
+        return new Concat(List.copyOf(parts));
+    }
+
+    private static boolean startsWithIgnoreCase(String text, String prefix) {
+        return text.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isWordChar(char c) {
+        return isLetterOrDigit(c) || c == '_';
+    }
+
+    private interface Node extends Serializable {
+        Object evaluate(Map<String, Object> globalVariables);
+    }
+
+    private record Literal(String text) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            return text;
+        }
+    }
+
+    private record Variable(String name, boolean required) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            Object value = globalVariables.get(name);
+            if (Objects.isNull(value) && required) {
+                throw new PrecisionTestException("ApiGlobalVariables:" + name + " is not set");
+            }
+            return value;
+        }
+    }
+
+    private record DynamicString(String file, String key) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            return ApiFrameworkActions.getPropertyValue(file, key);
+        }
+    }
+
+    private record MockCall(String className, String methodName, String param) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            Object value = Objects.isNull(param)
+                    ? ApiFrameworkActions.invokeClassMethods(className, methodName)
+                    : ApiFrameworkActions.invokeClassMethods(className, methodName, param);
+            return value;
+        }
+    }
+
+    private record Trimmed(Node node) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            Object value = node.evaluate(globalVariables);
+            return Objects.isNull(value) ? null : value.toString().trim();
+        }
+    }
+
+    private record Concat(List<Node> parts) implements Node {
+        @Override
+        public Object evaluate(Map<String, Object> globalVariables) {
+            StringBuilder text = new StringBuilder();
+            for (Node part : parts) {
+                text.append(part.evaluate(globalVariables));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package in.precisiontestautomation.utils;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ApiGlobalVariables of the suite in three layers: values of the running tests case, values of the TestNG worker
+ * thread running it and values shared by the whole suite. Reading a name falls through the layers in that order, and
+ * every layer is a concurrent map, so reads take no lock and parallel workers and dependency threads can share values.
+ *
+ * <p>{@link #get()} returns the {@link Scope} of the calling thread as a map, so existing code keeps using
+ * {@code ApiKeyInitializers.getGlobalVariables().get()}; a plain {@code put} writes to the tests case layer. A
+ * RESPONSE:STORE_VALUE name prefixed with {@code WORKER:} or {@code SUITE:} is stored in that layer instead, e.g.
+ * {@code SUITE:token} for a token every later tests case may read as {@code ApiGlobalVariables:token}.</p>
+ *
+ * <p>The only per thread state is the binding of a thread to its scope. It is removed when the tests case ends, and a
+ * scope can be bound to another thread (a virtual thread or a dependency thread) that works for the same tests case.</p>
+ *
+ * @author PTA-dev
+ */
+public final class VariableStore {
+
+    /**
+     * Stands for a null value, which concurrent maps cannot hold.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The worker id of a scope that belongs to no TestNG worker thread.
+     */
+    public static final long NO_WORKER = -1;
+
+    private final Map<String, Object> suite = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Object>> workers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Scope> bound = new ThreadLocal<>();
+
+    VariableStore() {
+    }
+
+    /**
+     * @return the scope bound to the calling thread, binding a new tests case scope of this worker thread when there
+     * is none yet.
+     */
+    public Scope get() {
+        Scope scope = bound.get();
+        if (Objects.isNull(scope)) {
+            scope = scope();
+            bound.set(scope);
+        }
+        return scope;
+    }
+
+    /**
+     * @return a new tests case scope of the worker thread calling, without binding it, for a tests case that the worker
+     * hands to another thread.
+     */
+    public Scope scope() {
+        long workerId = Thread.currentThread().getId();
+        return new Scope(suite, workerId, workers.computeIfAbsent(workerId, id -> new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * @return a new tests case scope that belongs to no worker thread, for a tests case started before TestNG picks the
+     * worker that runs it. Its worker layer lives as long as the tests case.
+     */
+    public Scope unownedScope() {
+        return new Scope(suite, NO_WORKER, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Binds a scope to the calling thread, e.g. the scope of the tests case a virtual thread or dependency thread runs
+     * for.
+     *
+     * @param scope The scope.
+     */
+    public void bind(Scope scope) {
+        bound.set(scope);
+    }
+
+    /**
+     * Unbinds the scope of the calling thread. The values of its tests case layer are dropped with it.
+     */
+    public void remove() {
+        bound.remove();
+    }
+
+    /**
+     * Stores a value in the layer named by the prefix of the name: {@code SUITE:name}, {@code WORKER:name} or
+     * {@code TEST:name}; a name without prefix goes to the tests case layer.
+     *
+     * @param name  The name, with an optional layer prefix.
+     * @param value The value.
+     */
+    public void store(String name, Object value) {
+        int colon = name.indexOf(':');
+        String layer = colon > 0 ? name.substring(0, colon).trim().toUpperCase(Locale.ROOT) : "";
+        Scope scope = get();
+        switch (layer) {
+            case "SUITE" -> scope.suite.put(name.substring(colon + 1).trim(), mask(value));
+            case "WORKER" -> scope.worker.put(name.substring(colon + 1).trim(), mask(value));
+            case "TEST" -> scope.test.put(name.substring(colon + 1).trim(), mask(value));
+            default -> scope.test.put(name, mask(value));
+        }
+    }
+
+    /**
+     * Drops the worker and suite layers, when the suite ends.
+     */
+    public void clear() {
+        workers.clear();
+        suite.clear();
+    }
+
+    private static Object mask(Object value) {
+        return Objects.isNull(value) ? NULL : value;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * The variables seen by one tests case. Reads fall through the tests case, worker and suite layers; writes go to
+     * the tests case layer. Iterating works on a snapshot of the three layers.
+     */
+    public static final class Scope extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> suite;
+        private final long workerId;
+        private final Map<String, Object> worker;
+        private final Map<String, Object> test = new ConcurrentHashMap<>();
+
+        private Scope(Map<String, Object> suite, long workerId, Map<String, Object> worker) {
+            this.suite = suite;
+            this.workerId = workerId;
+            this.worker = worker;
+        }
+
+        /**
+         * @return the id of the TestNG worker thread the tests case belongs to, also when another thread runs it, or
+         * {@link #NO_WORKER}.
+         */
+        public long workerId() {
+            return workerId;
+        }
+
+        /**
+         * @param values The tests case values of the new scope.
+         * @return a scope of the same worker and suite, starting with the given tests case values.
+         */
+        public Scope child(Map<String, Object> values) {
+            Scope child = new Scope(suite, workerId, worker);
+            values.forEach((key, value) -> child.test.put(key, mask(value)));
+            return child;
+        }
+
+        /**
+         * @return a copy of the tests case layer.
+         */
+        public Map<String, Object> testValues() {
+            Map<String, Object> values = new HashMap<>();
+            test.forEach((key, value) -> values.put(key, unmask(value)));
+            return values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = test.get(key);
+            if (Objects.isNull(value)) {
+                value = worker.get(key);
+            }
+            if (Objects.isNull(value)) {
+                value = suite.get(key);
+            }
+            return unmask(value);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return test.containsKey(key) || worker.containsKey(key) || suite.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return unmask(test.put(key, mask(value)));
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return unmask(test.remove(key));
+        }
+
+        /**
+         * Clears the tests case layer only.
+         */
+        @Override
+        public void clear() {
+            test.clear();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return test.isEmpty() && worker.isEmpty() && suite.isEmpty();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> snapshot = new HashMap<>();
+            suite.forEach((key, value) -> snapshot.put(key, unmask(value)));
+            worker.forEach((key, value) -> snapshot.put(key, unmask(value)));
+            test.forEach((key, value) -> snapshot.put(key, unmask(value)));
+            return Collections.unmodifiableMap(snapshot).entrySet();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package in.precisiontestautomation.utils;
+
+import in.precisiontestautomation.scriptlessautomation.core.exceptionhandling.PrecisionTestException;
+import lombok.Getter;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs tests cases on virtual threads when {@code EXECUTION_MODE=VIRTUAL} is set in
+ * {@code testNgConfiguration.properties}. Every task gets a fresh thread, so the ThreadLocal state of
+ * {@link ApiKeyInitializers} and the per thread readers dies with the tests case instead of living on in a pooled
+ * worker. {@code VIRTUAL_THREAD_CONCURRENCY} caps how many tests cases are in flight at the same time; the TestNG
+ * {@code ThreadCount} does not, as the runner hands every tests case of the data provider to this executor up front.
+ *
+ * <p>The project is compiled for Java 17, so the Java 21 virtual thread factory is looked up at runtime. On an older
+ * runtime every task falls back to its own short-lived platform thread with the same isolation guarantees.</p>
+ *
+ * @author PTA-dev
+ */
+public class VirtualThreadExecutor {
+
+    private final Executor executor;
+    @Getter private final boolean virtualThreads;
+    private final Semaphore permits = new Semaphore(ApiConfiguration.getInt("VIRTUAL_THREAD_CONCURRENCY", 256));
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private final Queue<Runnable> queued = new ConcurrentLinkedQueue<>();
+
+    private VirtualThreadExecutor() {
+        Executor virtualExecutor = null;
+        try {
+            virtualExecutor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need Java 21, falling back to one platform thread per tests case");
+        }
+        this.virtualThreads = virtualExecutor != null;
+        this.executor = virtualThreads ? virtualExecutor : task -> {
+            Thread thread = new Thread(task, "api-task");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+
+    private static final class Holder {
+        private static final VirtualThreadExecutor INSTANCE = new VirtualThreadExecutor();
+    }
+
+    /**
+     * @return the executor shared by the suite.
+     */
+    public static VirtualThreadExecutor getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return true when {@code EXECUTION_MODE} is {@code VIRTUAL}.
+     */
+    public static boolean isEnabled() {
+        return ApiConfiguration.getValue("EXECUTION_MODE", "PLATFORM").equalsIgnoreCase("VIRTUAL");
+    }
+
+    /**
+     * Starts the task on its own thread once a concurrency permit is free; until then it waits in a queue without a
+     * thread, so callers are never blocked by the cap. The permit is held until the future returned by the task
+     * completed: a tests case waiting for a non-blocking HTTP engine keeps its permit but no thread.
+     *
+     * @param task Starts the work and returns its future.
+     * @param <T> The result type.
+     * @return A future completed with the result of the future returned by the task.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queued.add(() -> {
+            Thread current = Thread.currentThread();
+            workers.add(current);
+            CompletableFuture<T> started;
+            try {
+                started = Objects.requireNonNull(task.get(), "task returned no future");
+            } catch (Throwable e) {
+                started = CompletableFuture.failedFuture(e);
+            } finally {
+                workers.remove(current);
+            }
+            started.whenComplete((value, error) -> {
+                permits.release();
+                startQueued();
+                if (Objects.isNull(error)) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error instanceof CompletionException && Objects.nonNull(error.getCause())
+                            ? error.getCause() : error);
+                }
+            });
+        });
+        startQueued();
+        return result;
+    }
+
+    private void startQueued() {
+        while (!queued.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queued.poll();
+            if (Objects.isNull(next)) {
+                permits.release();
+            } else {
+                executor.execute(next);
+            }
+        }
+    }
+
+    /**
+     * A DEPENDANT_TEST_CASE started from a worker has to stay on that thread to share the ThreadLocal state of
+     * the tests case that needs it.
+     *
+     * @return true when the calling thread is running a task of this executor.
+     */
+    public boolean isWorkerThread() {
+        return workers.contains(Thread.currentThread());
+    }
+
+    /**
+     * Waits for a future of {@link #submit(Supplier)} and rethrows its failure.
+     *
+     * @param future The future.
+     * @param <T> The result type.
+     * @return the result.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new PrecisionTestException(String.valueOf(e.getCause()));
+        }
+    }
+}